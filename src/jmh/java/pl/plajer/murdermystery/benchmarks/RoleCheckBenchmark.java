@@ -0,0 +1,137 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.plajer.murdermystery.arena.role.Role;
+
+/**
+ * Compares role checks of all players in an arena, as done by scoreboards and events every tick.
+ * <p>
+ * {@code lists} is the former Role.isRole which scanned murderer and detective lists of the arena
+ * (innocent check being negation of the other roles), {@code roleTable} is the per-arena role map
+ * the arena keeps now. Players are represented by their UUIDs, Bukkit players can't be created outside the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleCheckBenchmark {
+
+  @Param({"8", "24"})
+  private int players;
+  @Param({"1", "3"})
+  private int murderers;
+
+  private List<UUID> arenaPlayers;
+  private List<UUID> murdererList;
+  private List<UUID> detectiveList;
+  private UUID fakeDetective;
+  private Map<UUID, Role> playerRoles;
+
+  @Setup
+  public void setUp() {
+    arenaPlayers = new ArrayList<>(players);
+    murdererList = new ArrayList<>();
+    detectiveList = new ArrayList<>();
+    playerRoles = new HashMap<>();
+    for (int i = 0; i < players; i++) {
+      UUID uuid = UUID.randomUUID();
+      arenaPlayers.add(uuid);
+      if (i < murderers) {
+        murdererList.add(uuid);
+        playerRoles.put(uuid, Role.MURDERER);
+      } else if (i == murderers) {
+        detectiveList.add(uuid);
+        playerRoles.put(uuid, Role.DETECTIVE);
+      } else if (i == murderers + 1) {
+        fakeDetective = uuid;
+        playerRoles.put(uuid, Role.FAKE_DETECTIVE);
+      }
+    }
+  }
+
+  private boolean isRoleFromLists(Role role, UUID player) {
+    switch (role) {
+      case DETECTIVE:
+        return !detectiveList.isEmpty() && detectiveList.contains(player);
+      case FAKE_DETECTIVE:
+        return fakeDetective != null && fakeDetective.equals(player);
+      case MURDERER:
+        return !murdererList.isEmpty() && murdererList.contains(player);
+      case ANY_DETECTIVE:
+        return isRoleFromLists(Role.DETECTIVE, player) || isRoleFromLists(Role.FAKE_DETECTIVE, player);
+      case INNOCENT:
+        return !isRoleFromLists(Role.MURDERER, player) && !isRoleFromLists(Role.ANY_DETECTIVE, player);
+      default:
+        return false;
+    }
+  }
+
+  private boolean isRoleFromTable(Role role, UUID player) {
+    Role playerRole = playerRoles.get(player);
+    if (playerRole == null) {
+      playerRole = Role.INNOCENT;
+    }
+    if (role == Role.ANY_DETECTIVE) {
+      return playerRole == Role.DETECTIVE || playerRole == Role.FAKE_DETECTIVE;
+    }
+    return playerRole == role;
+  }
+
+  @Benchmark
+  public void lists(Blackhole blackhole) {
+    for (UUID player : arenaPlayers) {
+      blackhole.consume(isRoleFromLists(Role.INNOCENT, player));
+      blackhole.consume(isRoleFromLists(Role.MURDERER, player));
+      blackhole.consume(isRoleFromLists(Role.ANY_DETECTIVE, player));
+    }
+  }
+
+  @Benchmark
+  public void roleTable(Blackhole blackhole) {
+    for (UUID player : arenaPlayers) {
+      blackhole.consume(isRoleFromTable(Role.INNOCENT, player));
+      blackhole.consume(isRoleFromTable(Role.MURDERER, player));
+      blackhole.consume(isRoleFromTable(Role.ANY_DETECTIVE, player));
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.benchmarks;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.plajer.murdermystery.api.StatsStorage;
+
+/**
+ * Compares statistic storage of a user: scoreboard refresh reading every statistic
+ * and in-game progress adding to some of them.
+ * <p>
+ * {@code enumMap*} is the former boxed EnumMap with its containsKey/put/get lookup,
+ * {@code intArray*} is the ordinal indexed array User keeps now.
+ * Values are above the Integer cache range like statistics of regular players.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticStorageBenchmark {
+
+  private static final StatsStorage.StatisticType[] STATISTICS = StatsStorage.StatisticType.values();
+
+  private Map<StatsStorage.StatisticType, Integer> enumMap;
+  private int[] intArray;
+
+  @Setup
+  public void setUp() {
+    enumMap = new EnumMap<>(StatsStorage.StatisticType.class);
+    intArray = new int[STATISTICS.length];
+    for (StatsStorage.StatisticType stat : STATISTICS) {
+      enumMap.put(stat, 1000 + stat.ordinal());
+      intArray[stat.ordinal()] = 1000 + stat.ordinal();
+    }
+  }
+
+  private int getFromMap(StatsStorage.StatisticType stat) {
+    if (!enumMap.containsKey(stat)) {
+      enumMap.put(stat, 0);
+      return 0;
+    } else if (enumMap.get(stat) == null) {
+      return 0;
+    }
+    return enumMap.get(stat);
+  }
+
+  @Benchmark
+  public void enumMapRead(Blackhole blackhole) {
+    for (StatsStorage.StatisticType stat : STATISTICS) {
+      blackhole.consume(getFromMap(stat));
+    }
+  }
+
+  @Benchmark
+  public void intArrayRead(Blackhole blackhole) {
+    for (StatsStorage.StatisticType stat : STATISTICS) {
+      blackhole.consume(intArray[stat.ordinal()]);
+    }
+  }
+
+  @Benchmark
+  public int enumMapAdd() {
+    enumMap.put(StatsStorage.StatisticType.LOCAL_SCORE, getFromMap(StatsStorage.StatisticType.LOCAL_SCORE) + 1);
+    enumMap.put(StatsStorage.StatisticType.LOCAL_GOLD, getFromMap(StatsStorage.StatisticType.LOCAL_GOLD) + 1);
+    enumMap.put(StatsStorage.StatisticType.KILLS, getFromMap(StatsStorage.StatisticType.KILLS) + 1);
+    return getFromMap(StatsStorage.StatisticType.KILLS);
+  }
+
+  @Benchmark
+  public int intArrayAdd() {
+    intArray[StatsStorage.StatisticType.LOCAL_SCORE.ordinal()] += 1;
+    intArray[StatsStorage.StatisticType.LOCAL_GOLD.ordinal()] += 1;
+    intArray[StatsStorage.StatisticType.KILLS.ordinal()] += 1;
+    return intArray[StatsStorage.StatisticType.KILLS.ordinal()];
+  }
+
+}
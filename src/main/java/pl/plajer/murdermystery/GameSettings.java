@@ -0,0 +1,284 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import pl.plajer.murdermystery.arena.ArenaState;
+import pl.plajer.murdermystery.handlers.ChatManager;
+import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
+
+/**
+ * Immutable snapshot of values from config.yml, bungee.yml and mysql.yml
+ * that are read during the game. Built once on enable and replaced as a whole on reload,
+ * so game code never touches configuration files or their section maps.
+ *
+ * @see Main#getGameSettings()
+ */
+public final class GameSettings {
+
+  //config.yml
+  private final int startingWaitingTime;
+  private final int startTimeOnFullLobby;
+  private final int classicGameplayTime;
+  private final int murdererSpeedMultiplier;
+  private final double murdererSwordSpeed;
+  private final int murdererSwordFlyRange;
+  private final double murdererSwordFlyHitRange;
+  private final int murdererSwordAttackCooldown;
+  private final int murdererSwordFlyCooldown;
+  private final int detectiveGoldPickUpArrows;
+  private final int goldForBow;
+  private final int goldBowArrows;
+  private final int detectiveDefaultArrows;
+  private final int detectiveFakeArrows;
+  private final int detectivePrayerArrows;
+  private final int detectiveBowCooldown;
+  private final boolean overrideCorpsesSpawn;
+  private final boolean disableLeaveCommand;
+  private final boolean blockCommandsInGame;
+  private final List<String> whitelistedCommands;
+  private final boolean fireworkWhenGameEnds;
+  private final boolean signsBlockStatesEnabled;
+  //bungee.yml
+  private final String hubServer;
+  private final boolean shutdownWhenGameEnds;
+  private final boolean connectToHub;
+  private final boolean endLocationHub;
+  private final boolean motdManager;
+  private final String motdMessage;
+  private final Map<ArenaState, String> motdGameStates;
+  //mysql.yml, database is connected once so these are kept until restart
+  private final String mysqlTable;
+  private final int mysqlShutdownFlushTimeout;
+  private final boolean mysqlDeltaUpdates;
+
+  private GameSettings(FileConfiguration config, FileConfiguration bungee, FileConfiguration mysql, GameSettings previous) {
+    startingWaitingTime = config.getInt("Starting-Waiting-Time", 60);
+    startTimeOnFullLobby = config.getInt("Start-Time-On-Full-Lobby", 15);
+    classicGameplayTime = config.getInt("Classic-Gameplay-Time", 270);
+    murdererSpeedMultiplier = config.getInt("Speed-Effect-Murderer.Speed", 3);
+    murdererSwordSpeed = config.getDouble("Murderer-Sword-Speed", 0.65);
+    murdererSwordFlyRange = config.getInt("Murderer-Sword-Fly-Range", 20);
+    murdererSwordFlyHitRange = config.getDouble("Murderer-Sword-Fly-Hit-Range", 0.5);
+    murdererSwordAttackCooldown = config.getInt("Murderer-Sword-Attack-Cooldown", 1);
+    murdererSwordFlyCooldown = config.getInt("Murderer-Sword-Fly-Cooldown", 5);
+    detectiveGoldPickUpArrows = config.getInt("Detective-Gold-Pick-Up-Arrows", 3);
+    goldForBow = config.getInt("Gold-For-Bow", 10);
+    goldBowArrows = config.getInt("Gold-Bow-Arrows", 3);
+    detectiveDefaultArrows = config.getInt("Detective-Default-Arrows", 3);
+    detectiveFakeArrows = config.getInt("Detective-Fake-Arrows", 3);
+    detectivePrayerArrows = config.getInt("Detective-Prayer-Arrows", 2);
+    detectiveBowCooldown = config.getInt("Detective-Bow-Cooldown", 5);
+    overrideCorpsesSpawn = config.getBoolean("Override-Corpses-Spawn", true);
+    disableLeaveCommand = config.getBoolean("Disable-Leave-Command", false);
+    blockCommandsInGame = config.getBoolean("Block-Commands-In-Game", true);
+    whitelistedCommands = Collections.unmodifiableList(new ArrayList<>(config.getStringList("Whitelisted-Commands")));
+    fireworkWhenGameEnds = config.getBoolean("Firework-When-Game-Ends", true);
+    signsBlockStatesEnabled = config.getBoolean("Signs-Block-States-Enabled", true);
+
+    hubServer = bungee.getString("Hub");
+    shutdownWhenGameEnds = bungee.getBoolean("Shutdown-When-Game-Ends");
+    connectToHub = bungee.getBoolean("Connect-To-Hub", true);
+    endLocationHub = bungee.getBoolean("End-Location-Hub", true);
+    motdManager = bungee.getBoolean("MOTD.Manager", false);
+    motdMessage = ChatManager.colorRawMessage(bungee.getString("MOTD.Message", "The actual game state of mm is %state%"));
+    Map<ArenaState, String> gameStates = new EnumMap<>(ArenaState.class);
+    gameStates.put(ArenaState.WAITING_FOR_PLAYERS, ChatManager.colorRawMessage(bungee.getString("MOTD.Game-States.Inactive", "Inactive")));
+    gameStates.put(ArenaState.STARTING, ChatManager.colorRawMessage(bungee.getString("MOTD.Game-States.Starting", "Starting")));
+    gameStates.put(ArenaState.IN_GAME, ChatManager.colorRawMessage(bungee.getString("MOTD.Game-States.In-Game", "In-Game")));
+    gameStates.put(ArenaState.ENDING, ChatManager.colorRawMessage(bungee.getString("MOTD.Game-States.Ending", "Ending")));
+    gameStates.put(ArenaState.RESTARTING, ChatManager.colorRawMessage(bungee.getString("MOTD.Game-States.Restarting", "Restarting")));
+    motdGameStates = Collections.unmodifiableMap(gameStates);
+
+    if (previous != null) {
+      mysqlTable = previous.mysqlTable;
+      mysqlShutdownFlushTimeout = previous.mysqlShutdownFlushTimeout;
+      mysqlDeltaUpdates = previous.mysqlDeltaUpdates;
+      return;
+    }
+    mysqlTable = mysql.getString("table", "playerstats");
+    mysqlShutdownFlushTimeout = Math.max(1, mysql.getInt("shutdown-flush-timeout", 10));
+    mysqlDeltaUpdates = mysql.getBoolean("delta-updates", false);
+  }
+
+  /**
+   * Reads current content of config.yml, bungee.yml and mysql.yml into new settings snapshot.
+   * MySQL settings are read only on the first load, stats storage keeps using them until restart.
+   * Performs disk I/O so it shouldn't be called from game code, use {@link Main#getGameSettings()} instead.
+   *
+   * @param plugin plugin instance
+   * @return new settings snapshot
+   */
+  public static GameSettings load(Main plugin) {
+    GameSettings previous = plugin.getGameSettings();
+    return new GameSettings(plugin.getConfig(), ConfigUtils.getConfig(plugin, "bungee"), previous == null ? ConfigUtils.getConfig(plugin, "mysql") : null, previous);
+  }
+
+  public int getStartingWaitingTime() {
+    return startingWaitingTime;
+  }
+
+  public int getStartTimeOnFullLobby() {
+    return startTimeOnFullLobby;
+  }
+
+  public int getClassicGameplayTime() {
+    return classicGameplayTime;
+  }
+
+  public int getMurdererSpeedMultiplier() {
+    return murdererSpeedMultiplier;
+  }
+
+  public double getMurdererSwordSpeed() {
+    return murdererSwordSpeed;
+  }
+
+  public int getMurdererSwordFlyRange() {
+    return murdererSwordFlyRange;
+  }
+
+  public double getMurdererSwordFlyHitRange() {
+    return murdererSwordFlyHitRange;
+  }
+
+  public int getMurdererSwordAttackCooldown() {
+    return murdererSwordAttackCooldown;
+  }
+
+  public int getMurdererSwordFlyCooldown() {
+    return murdererSwordFlyCooldown;
+  }
+
+  public int getDetectiveGoldPickUpArrows() {
+    return detectiveGoldPickUpArrows;
+  }
+
+  public int getGoldForBow() {
+    return goldForBow;
+  }
+
+  public int getGoldBowArrows() {
+    return goldBowArrows;
+  }
+
+  public int getDetectiveDefaultArrows() {
+    return detectiveDefaultArrows;
+  }
+
+  public int getDetectiveFakeArrows() {
+    return detectiveFakeArrows;
+  }
+
+  public int getDetectivePrayerArrows() {
+    return detectivePrayerArrows;
+  }
+
+  public int getDetectiveBowCooldown() {
+    return detectiveBowCooldown;
+  }
+
+  public boolean isOverrideCorpsesSpawn() {
+    return overrideCorpsesSpawn;
+  }
+
+  public boolean isDisableLeaveCommand() {
+    return disableLeaveCommand;
+  }
+
+  public boolean isBlockCommandsInGame() {
+    return blockCommandsInGame;
+  }
+
+  /**
+   * @return unmodifiable list of commands allowed in game
+   */
+  public List<String> getWhitelistedCommands() {
+    return whitelistedCommands;
+  }
+
+  public boolean isFireworkWhenGameEnds() {
+    return fireworkWhenGameEnds;
+  }
+
+  public boolean isSignsBlockStatesEnabled() {
+    return signsBlockStatesEnabled;
+  }
+
+  public String getHubServer() {
+    return hubServer;
+  }
+
+  public boolean isShutdownWhenGameEnds() {
+    return shutdownWhenGameEnds;
+  }
+
+  public boolean isConnectToHub() {
+    return connectToHub;
+  }
+
+  public boolean isEndLocationHub() {
+    return endLocationHub;
+  }
+
+  public boolean isMotdManager() {
+    return motdManager;
+  }
+
+  /**
+   * @return colored MOTD message with %state% placeholder
+   */
+  public String getMotdMessage() {
+    return motdMessage;
+  }
+
+  /**
+   * @param state arena state
+   * @return colored MOTD representation of the state
+   */
+  public String getMotdGameState(ArenaState state) {
+    return motdGameStates.get(state);
+  }
+
+  public String getMysqlTable() {
+    return mysqlTable;
+  }
+
+  /**
+   * @return maximum time (in seconds) of writing pending statistics when plugin is being disabled
+   */
+  public int getMysqlShutdownFlushTimeout() {
+    return mysqlShutdownFlushTimeout;
+  }
+
+  /**
+   * @return true if statistics are written as increments instead of absolute values
+   */
+  public boolean isMysqlDeltaUpdates() {
+    return mysqlDeltaUpdates;
+  }
+
+}
@@ -36,11 +36,12 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.potion.PotionEffect;
 
-import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.arena.Arena;
 import pl.plajer.murdermystery.arena.ArenaEvents;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
+import pl.plajer.murdermystery.arena.ArenaTicker;
 import pl.plajer.murdermystery.arena.ArenaUtils;
+import pl.plajer.murdermystery.arena.history.MatchHistory;
 import pl.plajer.murdermystery.arena.special.SpecialBlockEvents;
 import pl.plajer.murdermystery.arena.special.mysterypotion.MysteryPotionRegistry;
 import pl.plajer.murdermystery.arena.special.pray.PrayerRegistry;
@@ -65,9 +66,8 @@ import pl.plajer.murdermystery.handlers.party.PartySupportInitializer;
 import pl.plajer.murdermystery.handlers.rewards.RewardsFactory;
 import pl.plajer.murdermystery.handlers.sign.ArenaSign;
 import pl.plajer.murdermystery.handlers.sign.SignManager;
-import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.user.StatisticChangeDispatcher;
 import pl.plajer.murdermystery.user.UserManager;
-import pl.plajer.murdermystery.user.data.MysqlManager;
 import pl.plajer.murdermystery.utils.Debugger;
 import pl.plajer.murdermystery.utils.ExceptionLogHandler;
 import pl.plajer.murdermystery.utils.MessageUtils;
@@ -95,9 +95,13 @@ public class Main extends JavaPlugin {
   private CorpseHandler corpseHandler;
   private PartyHandler partyHandler;
   private ConfigPreferences configPreferences;
+  private volatile GameSettings gameSettings;
   private ArgumentsRegistry argumentsRegistry;
   private HookManager hookManager;
   private UserManager userManager;
+  private StatisticChangeDispatcher statisticChangeDispatcher;
+  private ArenaTicker arenaTicker;
+  private MatchHistory matchHistory;
 
   @Override
   public void onEnable() {
@@ -126,6 +130,7 @@ public class Main extends JavaPlugin {
 
     configPreferences = new ConfigPreferences(this);
     setupFiles();
+    reloadGameSettings();
     initializeClasses();
     checkUpdate();
     Debugger.debug(Level.INFO, "[System] Initialization finished took {0}ms", System.currentTimeMillis() - start);
@@ -176,6 +181,9 @@ public class Main extends JavaPlugin {
 
     Bukkit.getLogger().removeHandler(exceptionLogHandler);
     saveAllUserStatistics();
+    if (matchHistory != null) {
+      matchHistory.shutdown();
+    }
     if (hookManager != null && hookManager.isFeatureEnabled(HookManager.HookFeature.CORPSES)) {
       for (Hologram hologram : HologramsAPI.getHolograms(this)) {
         hologram.delete();
@@ -218,7 +226,12 @@ public class Main extends JavaPlugin {
       database = new MysqlDatabase(config.getString("user"), config.getString("password"), config.getString("address"));
     }
     argumentsRegistry = new ArgumentsRegistry(this);
+    //statistics may be applied while user manager is created
+    statisticChangeDispatcher = new StatisticChangeDispatcher(this);
     userManager = new UserManager(this);
+    if (configPreferences.getOption(ConfigPreferences.Option.MATCH_HISTORY_ENABLED)) {
+      matchHistory = new MatchHistory(this);
+    }
     Utils.init(this);
     ArenaSign.init(this);
     SpecialItem.loadAll();
@@ -230,7 +243,7 @@ public class Main extends JavaPlugin {
     new JoinEvent(this);
     new ChatEvents(this);
     registerSoftDependenciesAndServices();
-    User.cooldownHandlerTask();
+    arenaTicker = new ArenaTicker(this);
     ArenaRegistry.registerArenas();
     new Events(this);
     new LobbyEvent(this);
@@ -343,6 +356,20 @@ public class Main extends JavaPlugin {
     return configPreferences;
   }
 
+  /**
+   * @return current immutable snapshot of game settings
+   */
+  public GameSettings getGameSettings() {
+    return gameSettings;
+  }
+
+  /**
+   * Re-reads game settings from configuration files and swaps current snapshot.
+   */
+  public void reloadGameSettings() {
+    gameSettings = GameSettings.load(this);
+  }
+
   public MysqlDatabase getMysqlDatabase() {
     return database;
   }
@@ -367,28 +394,27 @@ public class Main extends JavaPlugin {
     return userManager;
   }
 
+  public StatisticChangeDispatcher getStatisticChangeDispatcher() {
+    return statisticChangeDispatcher;
+  }
+
+  public ArenaTicker getArenaTicker() {
+    return arenaTicker;
+  }
+
+  /**
+   * @return match history or null if it's disabled
+   */
+  public MatchHistory getMatchHistory() {
+    return matchHistory;
+  }
+
   private void saveAllUserStatistics() {
     for (Player player : getServer().getOnlinePlayers()) {
-      User user = userManager.getUser(player);
-      StringBuilder update = new StringBuilder(" SET ");
-      for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
-        if (!stat.isPersistent()) {
-          user.setStat(stat, 0);
-        }
-        if (update.toString().equalsIgnoreCase(" SET ")){
-          update.append(stat.getName()).append("=").append(user.getStat(stat));
-        }
-        update.append(", ").append(stat.getName()).append("=").append(user.getStat(stat));
-      }
-      String finalUpdate = update.toString();
-      //copy of userManager#saveStatistic but without async database call that's not allowed in onDisable method.
-      if (userManager.getDatabase() instanceof MysqlManager) {
-        ((MysqlManager) userManager.getDatabase()).getDatabase().executeUpdate("UPDATE "+((MysqlManager) getUserManager().getDatabase()).getTableName()+ finalUpdate + " WHERE UUID='" + user.getPlayer().getUniqueId().toString() + "';");
-        continue;
-      }
-      userManager.getDatabase().saveAllStatistic(user);
+      userManager.saveAllStatistic(userManager.getUser(player));
     }
+    //async tasks can't be scheduled in onDisable, pending writes are done in place
+    userManager.getDatabase().shutdown();
   }
 
-
 }
@@ -18,10 +18,7 @@
 
 package pl.plajer.murdermystery.api;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -31,6 +28,8 @@ import java.util.TreeMap;
 import java.util.UUID;
 import java.util.logging.Level;
 
+import javax.annotation.Nullable;
+
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -40,7 +39,11 @@ import org.jetbrains.annotations.NotNull;
 
 import pl.plajer.murdermystery.ConfigPreferences;
 import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.user.data.BinaryStats;
+import pl.plajer.murdermystery.user.data.LeaderboardCache;
+import pl.plajer.murdermystery.user.data.LeaderboardEntry;
 import pl.plajer.murdermystery.user.data.MysqlManager;
+import pl.plajer.murdermystery.user.data.SqliteManager;
 import pl.plajer.murdermystery.utils.MessageUtils;
 import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
 
@@ -66,7 +69,9 @@ public class StatsStorage {
   }
 
   /**
-   * Get all UUID's sorted ascending by Statistic Type
+   * Get all UUID's sorted ascending by Statistic Type.
+   * When SQLite storage is used and this is called from main thread only players
+   * of cached leaderboard ({@link LeaderboardCache#TOP_SIZE} best ones) are returned.
    *
    * @param stat Statistic type to get (kills, deaths etc.)
    * @return Map of UUID keys and Integer values sorted in ascending order of requested statistic type
@@ -75,14 +80,16 @@ public class StatsStorage {
   @Contract("null -> fail")
   public static Map<UUID, Integer> getStats(StatisticType stat) {
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.DATABASE_ENABLED)) {
-      try (Connection connection = plugin.getMysqlDatabase().getConnection()) {
-        Statement statement = connection.createStatement();
-        ResultSet set = statement.executeQuery("SELECT UUID, " + stat.getName() + " FROM " + ((MysqlManager) plugin.getUserManager().getDatabase()).getTableName() + " ORDER BY " + stat.getName());
-        Map<java.util.UUID, java.lang.Integer> column = new LinkedHashMap<>();
-        while (set.next()) {
-          column.put(java.util.UUID.fromString(set.getString("UUID")), set.getInt(stat.getName()));
-        }
-        return column;
+      MysqlManager database = (MysqlManager) plugin.getUserManager().getDatabase();
+      try {
+        return database.getAccess().query("stats", "SELECT UUID, " + stat.getName() + " FROM " + database.getTableName() + " ORDER BY " + stat.getName(), statement -> {
+        }, set -> {
+          Map<UUID, Integer> column = new LinkedHashMap<>();
+          while (set.next()) {
+            column.put(UUID.fromString(set.getString("UUID")), set.getInt(stat.getName()));
+          }
+          return column;
+        });
       } catch (SQLException e) {
         plugin.getLogger().log(Level.WARNING, "SQLException occurred! " + e.getSQLState() + " (" + e.getErrorCode() + ")");
         MessageUtils.errorOccurred();
@@ -91,6 +98,21 @@ public class StatsStorage {
         return Collections.emptyMap();
       }
     }
+    if (plugin.getUserManager().getDatabase() instanceof SqliteManager) {
+      if (Bukkit.isPrimaryThread()) {
+        //whole table scan would block the server, cached leaderboard is served instead
+        List<LeaderboardEntry> leaderboard = getLeaderboard(stat);
+        Map<UUID, Integer> top = new LinkedHashMap<>();
+        for (int i = leaderboard.size() - 1; i >= 0; i--) {
+          top.put(leaderboard.get(i).getUuid(), leaderboard.get(i).getValue());
+        }
+        return top;
+      }
+      return ((SqliteManager) plugin.getUserManager().getDatabase()).getStats(stat);
+    }
+    if (plugin.getUserManager().getDatabase() instanceof BinaryStats) {
+      return sortByValue(((BinaryStats) plugin.getUserManager().getDatabase()).getStats(stat));
+    }
     FileConfiguration config = ConfigUtils.getConfig(plugin, "stats");
     Map<UUID, Integer> stats = new TreeMap<>();
     for (String string : config.getKeys(false)) {
@@ -102,6 +124,52 @@ public class StatsStorage {
     return sortByValue(stats);
   }
 
+  /**
+   * Get cached leaderboard of the statistic, doesn't access the storage
+   *
+   * @param stat persistent statistic type to get
+   * @return unmodifiable list of at most {@link LeaderboardCache#TOP_SIZE} entries sorted descending
+   */
+  public static List<LeaderboardEntry> getLeaderboard(StatisticType stat) {
+    return plugin.getUserManager().getLeaderboardCache().getLeaderboard(stat);
+  }
+
+  /**
+   * Get entry of cached leaderboard at given position, doesn't access the storage
+   *
+   * @param stat     persistent statistic type to get
+   * @param position 1-based position in the leaderboard
+   * @return entry at the position or null if there is no such entry
+   */
+  @Nullable
+  public static LeaderboardEntry getLeaderboardEntry(StatisticType stat, int position) {
+    List<LeaderboardEntry> leaderboard = getLeaderboard(stat);
+    return position < 1 || position > leaderboard.size() ? null : leaderboard.get(position - 1);
+  }
+
+  /**
+   * Get name of the player from the name cache, doesn't access the storage.
+   * Unknown names are fetched asynchronously so they're available on later calls
+   *
+   * @param entry entry of cached leaderboard
+   * @return name of the player or null if it's not cached yet
+   */
+  @Nullable
+  public static String getLeaderboardName(LeaderboardEntry entry) {
+    return plugin.getUserManager().getNameCache().getOrRequest(entry.getUuid());
+  }
+
+  /**
+   * Get rank of the player in statistic, doesn't access the storage
+   *
+   * @param player player to get rank of
+   * @param stat   persistent statistic type to get rank in
+   * @return 1-based position of the player, 0 for non persistent statistics
+   */
+  public static int getUserRank(Player player, StatisticType stat) {
+    return plugin.getUserManager().getRankIndex().getRank(stat, getUserStats(player, stat));
+  }
+
   /**
    * Get user statistic based on StatisticType
    *
@@ -27,10 +27,12 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -64,6 +66,7 @@ import pl.plajer.murdermystery.api.events.game.MMGameStartEvent;
 import pl.plajer.murdermystery.api.events.game.MMGameStateChangeEvent;
 import pl.plajer.murdermystery.arena.corpse.Corpse;
 import pl.plajer.murdermystery.arena.corpse.Stand;
+import pl.plajer.murdermystery.arena.history.MatchRecord;
 import pl.plajer.murdermystery.arena.managers.ScoreboardManager;
 import pl.plajer.murdermystery.arena.options.ArenaOption;
 import pl.plajer.murdermystery.arena.role.Role;
@@ -71,13 +74,17 @@ import pl.plajer.murdermystery.arena.special.SpecialBlock;
 import pl.plajer.murdermystery.handlers.ChatManager;
 import pl.plajer.murdermystery.handlers.rewards.Reward;
 import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.user.UserManager;
 import pl.plajer.murdermystery.utils.Debugger;
 import pl.plajer.murdermystery.utils.ItemPosition;
 import pl.plajer.murdermystery.utils.Utils;
-import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
 import pl.plajerlair.commonsbox.minecraft.serialization.InventorySerializer;
 import pl.plajerlair.commonsbox.number.NumberUtils;
 
+/**
+ * Game arena, its game logic is ticked by {@link ArenaTicker}.
+ * It stays {@link BukkitRunnable} for compatibility with addons, but it's never scheduled by itself.
+ */
 public class Arena extends BukkitRunnable {
 
   private static final Random random = new Random();
@@ -85,6 +92,8 @@ public class Arena extends BukkitRunnable {
   private final String id;
 
   private Set<Player> players = new HashSet<>();
+  //players that are not spectators, updated on join, leave and spectator status change
+  private Set<Player> playersLeft = new LinkedHashSet<>();
   private List<Location> goldSpawnPoints = new ArrayList<>();
   private List<Item> goldSpawned = new ArrayList<>();
   private List<Location> playerSpawnPoints = new ArrayList<>();
@@ -96,13 +105,18 @@ public class Arena extends BukkitRunnable {
 
   private int murderers = 0;
   private int detectives = 0;
+  private int aliveMurderers = 0;
+  private int aliveDetectives = 0;
   private int spawnGoldTimer = 0;
   private int spawnGoldTime = 0;
 
   //contains murderer, detective, fake detective and hero
   private Map<CharacterType, Player> gameCharacters = new EnumMap<>(CharacterType.class);
+  //authoritative role of each player, players not contained here are innocents
+  private Map<UUID, Role> playerRoles = new HashMap<>();
   //all arena values that are integers, contains constant and floating values
-  private Map<ArenaOption, Integer> arenaOptions = new EnumMap<>(ArenaOption.class);
+  //indexed by option ordinal, read many times per tick so values aren't boxed
+  private final int[] arenaOptions = new int[ArenaOption.values().length];
   //instead of 3 location fields we use map with GameLocation enum
   private Map<GameLocation, Location> gameLocations = new EnumMap<>(GameLocation.class);
 
@@ -117,11 +131,16 @@ public class Arena extends BukkitRunnable {
   private String mapName = "";
   private boolean ready = true;
   private boolean forceStart = false;
+  private int statsWaitTime = 0;
+  private long gameStartTime = 0;
+  //players who were in the arena when current game started
+  private final Set<UUID> gameParticipants = new LinkedHashSet<>();
+  private final Map<UUID, MatchRecord.Participant> leftParticipants = new HashMap<>();
 
   public Arena(String id) {
     this.id = id;
     for (ArenaOption option : ArenaOption.values()) {
-      arenaOptions.put(option, option.getDefaultValue());
+      arenaOptions[option.ordinal()] = option.getDefaultValue();
     }
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BOSSBAR_ENABLED)) {
       gameBar = Bukkit.createBossBar(ChatManager.colorMessage("Bossbar.Main-Title"), BarColor.BLUE, BarStyle.SOLID);
@@ -156,12 +175,11 @@ public class Arena extends BukkitRunnable {
     this.bowHologram = bowHologram;
   }
 
+  /**
+   * Runs game logic of the arena, called every second by {@link ArenaTicker}.
+   */
   @Override
   public void run() {
-    //idle task
-    if (getPlayers().isEmpty() && getArenaState() == ArenaState.WAITING_FOR_PLAYERS) {
-      return;
-    }
     Debugger.performance("ArenaTask", "[PerformanceMonitor] [{0}] Running game task", getId());
     long start = System.currentTimeMillis();
 
@@ -182,22 +200,22 @@ public class Arena extends BukkitRunnable {
           }
           ChatManager.broadcast(this, ChatManager.colorMessage("In-Game.Messages.Lobby-Messages.Enough-Players-To-Start"));
           setArenaState(ArenaState.STARTING);
-          setTimer(plugin.getConfig().getInt("Starting-Waiting-Time", 60));
+          setTimer(plugin.getGameSettings().getStartingWaitingTime());
           this.showPlayers();
         }
         setTimer(getTimer() - 1);
         break;
       case STARTING:
-        if (getPlayers().size() == getMaximumPlayers() && getTimer() >= plugin.getConfig().getInt("Start-Time-On-Full-Lobby", 15) && !forceStart) {
-          setTimer(plugin.getConfig().getInt("Start-Time-On-Full-Lobby", 15));
+        if (getPlayers().size() == getMaximumPlayers() && getTimer() >= plugin.getGameSettings().getStartTimeOnFullLobby() && !forceStart) {
+          setTimer(plugin.getGameSettings().getStartTimeOnFullLobby());
           ChatManager.broadcast(this, ChatManager.colorMessage("In-Game.Messages.Lobby-Messages.Start-In").replace("%TIME%", String.valueOf(getTimer())));
         }
         if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BOSSBAR_ENABLED)) {
           gameBar.setTitle(ChatManager.colorMessage("Bossbar.Starting-In").replace("%time%", String.valueOf(getTimer())));
-          gameBar.setProgress(getTimer() / plugin.getConfig().getDouble("Starting-Waiting-Time", 60));
+          gameBar.setProgress(getTimer() / (double) plugin.getGameSettings().getStartingWaitingTime());
         }
         for (Player player : getPlayers()) {
-          player.setExp((float) (getTimer() / plugin.getConfig().getDouble("Starting-Waiting-Time", 60)));
+          player.setExp((float) (getTimer() / (double) plugin.getGameSettings().getStartingWaitingTime()));
           player.setLevel(getTimer());
         }
         if (getPlayers().size() < getMinimumPlayers() && !forceStart) {
@@ -209,6 +227,7 @@ public class Arena extends BukkitRunnable {
           setArenaState(ArenaState.WAITING_FOR_PLAYERS);
           Bukkit.getPluginManager().callEvent(new MMGameStartEvent(this));
           setTimer(15);
+          statsWaitTime = 0;
           for (Player player : getPlayers()) {
             player.setExp(1);
             player.setLevel(0);
@@ -222,8 +241,8 @@ public class Arena extends BukkitRunnable {
         int totalDetective = 0;
         for (Player p : getPlayers()) {
           User user = plugin.getUserManager().getUser(p);
-          totalMurderer += user.getStat(StatsStorage.StatisticType.CONTRIBUTION_MURDERER);
-          totalDetective += user.getStat(StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE);
+          totalMurderer += getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_MURDERER);
+          totalDetective += getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE);
         }
         if (!hideChances) {
           for (Player p : getPlayers()) {
@@ -235,7 +254,18 @@ public class Arena extends BukkitRunnable {
             }
           }
         }
+        if ((getTimer() == 0 || forceStart) && !areStatsLoaded()) {
+          //roles are chosen from contribution statistics, hold the start until they arrive
+          break;
+        }
         if (getTimer() == 0 || forceStart) {
+          statsWaitTime = 0;
+          gameStartTime = System.currentTimeMillis();
+          gameParticipants.clear();
+          leftParticipants.clear();
+          for (Player player : getPlayers()) {
+            gameParticipants.add(player.getUniqueId());
+          }
           MMGameStartEvent gameStartEvent = new MMGameStartEvent(this);
           Bukkit.getPluginManager().callEvent(gameStartEvent);
           setArenaState(ArenaState.IN_GAME);
@@ -254,7 +284,7 @@ public class Arena extends BukkitRunnable {
             ArenaUtils.hidePlayersOutsideTheGame(player, this);
             player.updateInventory();
             plugin.getUserManager().getUser(player).addStat(StatsStorage.StatisticType.GAMES_PLAYED, 1);
-            setTimer(plugin.getConfig().getInt("Classic-Gameplay-Time", 270));
+            setTimer(plugin.getGameSettings().getClassicGameplayTime());
             player.sendMessage(ChatManager.PLUGIN_PREFIX + ChatManager.colorMessage("In-Game.Messages.Lobby-Messages.Game-Started"));
           }
 
@@ -262,8 +292,8 @@ public class Arena extends BukkitRunnable {
           Map<User, Double> detectiveChances = new HashMap<>();
           for (Player p : getPlayers()) {
             User user = plugin.getUserManager().getUser(p);
-            murdererChances.put(user, ((double) user.getStat(StatsStorage.StatisticType.CONTRIBUTION_MURDERER) / (double) totalMurderer) * 100.0);
-            detectiveChances.put(user, ((double) user.getStat(StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE) / (double) totalDetective) * 100.0);
+            murdererChances.put(user, ((double) getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_MURDERER) / (double) totalMurderer) * 100.0);
+            detectiveChances.put(user, ((double) getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE) / (double) totalDetective) * 100.0);
           }
           Map<User, Double> sortedMurderer = murdererChances.entrySet().stream().sorted(Collections.reverseOrder(Map.Entry.comparingByValue())).collect(
             Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2, LinkedHashMap::new));
@@ -313,7 +343,7 @@ public class Arena extends BukkitRunnable {
             playersToSet.remove(detective);
             detective.getInventory().setHeldItemSlot(0);
             ItemPosition.setItem(detective, ItemPosition.BOW, new ItemStack(Material.BOW, 1));
-            ItemPosition.setItem(detective, ItemPosition.INFINITE_ARROWS, new ItemStack(Material.ARROW, plugin.getConfig().getInt("Detective-Default-Arrows", 3)));
+            ItemPosition.setItem(detective, ItemPosition.INFINITE_ARROWS, new ItemStack(Material.ARROW, plugin.getGameSettings().getDetectiveDefaultArrows()));
           }
           Debugger.debug(Level.INFO, "Arena: {0} | Detectives = {1}, Murders = {2}, Players = {3} | Players: Detectives = {4}, Murders = {5}",
             getId(), maxdetectives, maxmurderer, getPlayers().size(), allDetectives, allMurderer);
@@ -342,14 +372,14 @@ public class Arena extends BukkitRunnable {
         if (getTimer() <= 0) {
           ArenaManager.stopGame(false, this);
         }
-        if (getTimer() <= (plugin.getConfig().getInt("Classic-Gameplay-Time", 270) - 10)
-          && getTimer() > (plugin.getConfig().getInt("Classic-Gameplay-Time", 270) - 15)) {
+        if (getTimer() <= (plugin.getGameSettings().getClassicGameplayTime() - 10)
+          && getTimer() > (plugin.getGameSettings().getClassicGameplayTime() - 15)) {
           for (Player p : getPlayers()) {
             p.sendMessage(ChatManager.colorMessage("In-Game.Messages.Murderer-Get-Sword")
-              .replace("%time%", String.valueOf(getTimer() - (plugin.getConfig().getInt("Classic-Gameplay-Time", 270) - 15))));
+              .replace("%time%", String.valueOf(getTimer() - (plugin.getGameSettings().getClassicGameplayTime() - 15))));
             p.playSound(p.getLocation(), Sound.UI_BUTTON_CLICK, 1, 1);
           }
-          if (getTimer() == (plugin.getConfig().getInt("Classic-Gameplay-Time", 270) - 14)) {
+          if (getTimer() == (plugin.getGameSettings().getClassicGameplayTime() - 14)) {
             if (allMurderer.isEmpty()) ArenaManager.stopGame(false, this);
             for (Player p : allMurderer) {
               User murderer = plugin.getUserManager().getUser(p);
@@ -378,15 +408,15 @@ public class Arena extends BukkitRunnable {
           }
         }
 
-        if (getTimer() <= 30 || getPlayersLeft().size() == aliveMurderer() + 1) {
+        if (getTimer() <= 30 || getPlayersLeftCount() == aliveMurderer() + 1) {
           ArenaUtils.updateInnocentLocator(this);
         }
         //no players - stop game
-        if (getPlayersLeft().size() == 0) {
+        if (getPlayersLeftCount() == 0) {
           ArenaManager.stopGame(false, this);
         } else
           //winner check
-          if (getPlayersLeft().size() == aliveMurderer()) {
+          if (getPlayersLeftCount() == aliveMurderer()) {
             for (Player p : getPlayers()) {
               p.sendTitle(ChatManager.colorMessage("In-Game.Messages.Game-End-Messages.Titles.Lose"),
                 ChatManager.colorMessage("In-Game.Messages.Game-End-Messages.Subtitles.Murderer-Kill-Everyone"), 5, 40, 5);
@@ -398,13 +428,13 @@ public class Arena extends BukkitRunnable {
           } else
             //murderer speed add
             if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.MURDERER_SPEED_ENABLED)) {
-              if (getPlayersLeft().size() == aliveMurderer() + 1) {
+              if (getPlayersLeftCount() == aliveMurderer() + 1) {
                 for (Player p : allMurderer) {
                   if (isMurderAlive(p)) {
                     //no potion because it adds particles which can be identified
-                    int multiplier = plugin.getConfig().getInt("Speed-Effect-Murderer.Speed", 3);
+                    int multiplier = plugin.getGameSettings().getMurdererSpeedMultiplier();
                     if (multiplier > 1 && multiplier <= 10) {
-                      p.setWalkSpeed(0.1f * plugin.getConfig().getInt("Speed-Effect-Murderer.Speed", 3));
+                      p.setWalkSpeed(0.1f * plugin.getGameSettings().getMurdererSpeedMultiplier());
                     }
                   }
                 }
@@ -468,11 +498,11 @@ public class Arena extends BukkitRunnable {
             plugin.getUserManager().saveAllStatistic(user);
           }
           plugin.getRewardsHandler().performReward(this, Reward.RewardType.END_GAME);
-          players.clear();
+          clearPlayers();
 
           cleanUpArena();
           if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BUNGEE_ENABLED)) {
-            if (ConfigUtils.getConfig(plugin, "bungee").getBoolean("Shutdown-When-Game-Ends")) {
+            if (plugin.getGameSettings().isShutdownWhenGameEnds()) {
               plugin.getServer().shutdown();
             }
           }
@@ -481,10 +511,12 @@ public class Arena extends BukkitRunnable {
         setTimer(getTimer() - 1);
         break;
       case RESTARTING:
-        getPlayers().clear();
+        clearPlayers();
         setArenaState(ArenaState.WAITING_FOR_PLAYERS);
         if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BUNGEE_ENABLED)) {
           ArenaRegistry.shuffleBungeeArena();
+          //players sent by the proxy during the game are loaded at once instead of on each join attempt
+          plugin.getUserManager().preloadStatistics(new ArrayList<>(Bukkit.getOnlinePlayers()));
           for (Player player : Bukkit.getOnlinePlayers()) {
             ArenaManager.joinAttempt(player, ArenaRegistry.getArenas().get(ArenaRegistry.getBungeeArena()));
           }
@@ -505,11 +537,37 @@ public class Arena extends BukkitRunnable {
 
   private String formatRoleChance(User user, int murdererPts, int detectivePts) throws NumberFormatException {
     String message = ChatManager.colorMessage("In-Game.Messages.Lobby-Messages.Role-Chances-Action-Bar");
-    message = StringUtils.replace(message, "%murderer_chance%", NumberUtils.round(((double) user.getStat(StatsStorage.StatisticType.CONTRIBUTION_MURDERER) / (double) murdererPts) * 100.0, 2) + "%");
-    message = StringUtils.replace(message, "%detective_chance%", NumberUtils.round(((double) user.getStat(StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE) / (double) detectivePts) * 100.0, 2) + "%");
+    message = StringUtils.replace(message, "%murderer_chance%", NumberUtils.round(((double) getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_MURDERER) / (double) murdererPts) * 100.0, 2) + "%");
+    message = StringUtils.replace(message, "%detective_chance%", NumberUtils.round(((double) getContribution(user, StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE) / (double) detectivePts) * 100.0, 2) + "%");
     return message;
   }
 
+  /**
+   * Contribution of users whose statistics didn't arrive in time counts as default one.
+   */
+  private int getContribution(User user, StatsStorage.StatisticType contribution) {
+    return user.isStatsLoaded() ? user.getStat(contribution) : 1;
+  }
+
+  /**
+   * Checks whether statistics of all players are loaded, gives up waiting
+   * after {@link UserManager#STATS_LOAD_TIMEOUT} seconds.
+   *
+   * @return true if game can start
+   */
+  private boolean areStatsLoaded() {
+    if (statsWaitTime >= UserManager.STATS_LOAD_TIMEOUT) {
+      return true;
+    }
+    for (Player player : getPlayers()) {
+      if (!plugin.getUserManager().getUser(player).isStatsLoaded()) {
+        statsWaitTime++;
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void spawnSomeGold() {
     //may users want to disable it and want much gold on there map xD
     if (!plugin.getConfigPreferences().getOption(ConfigPreferences.Option.DISABLE_GOLD_LIMITER)) {
@@ -634,6 +692,40 @@ public class Arena extends BukkitRunnable {
     this.mapName = mapname;
   }
 
+  /**
+   * @return epoch millis when current game started
+   */
+  public long getGameStartTime() {
+    return gameStartTime;
+  }
+
+  /**
+   * @return unmodifiable set of players who were in the arena when current game started,
+   * players who joined later as spectators aren't part of it
+   */
+  public Set<UUID> getGameParticipants() {
+    return Collections.unmodifiableSet(gameParticipants);
+  }
+
+  /**
+   * Remembers result of game participant who left before the game ended.
+   *
+   * @param participant result of the player at the moment of leaving
+   */
+  public void addLeftParticipant(MatchRecord.Participant participant) {
+    if (gameParticipants.contains(participant.getUuid())) {
+      leftParticipants.put(participant.getUuid(), participant);
+    }
+  }
+
+  /**
+   * @param uuid uuid of game participant
+   * @return result of the participant if they left before the game ended, null otherwise
+   */
+  public MatchRecord.Participant getLeftParticipant(UUID uuid) {
+    return leftParticipants.get(uuid);
+  }
+
   /**
    * Get timer of arena.
    *
@@ -768,7 +860,7 @@ public class Arena extends BukkitRunnable {
 
   public void teleportAllToEndLocation() {
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BUNGEE_ENABLED)
-      && ConfigUtils.getConfig(plugin, "bungee").getBoolean("End-Location-Hub", true)) {
+      && plugin.getGameSettings().isEndLocationHub()) {
       for (Player player : getPlayers()) {
         plugin.getBungeeManager().connectToHub(player);
       }
@@ -787,7 +879,7 @@ public class Arena extends BukkitRunnable {
 
   public void teleportToEndLocation(Player player) {
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BUNGEE_ENABLED)
-      && ConfigUtils.getConfig(plugin, "bungee").getBoolean("End-Location-Hub", true)) {
+      && plugin.getGameSettings().isEndLocationHub()) {
       plugin.getBungeeManager().connectToHub(player);
       return;
     }
@@ -854,12 +946,14 @@ public class Arena extends BukkitRunnable {
 
   public void start() {
     Debugger.debug(Level.INFO, "[{0}] Game instance started", getId());
-    this.runTaskTimer(plugin, 20L, 20L);
+    plugin.getArenaTicker().startTicking(this);
     this.setArenaState(ArenaState.RESTARTING);
   }
 
   void addPlayer(Player player) {
     players.add(player);
+    ArenaRegistry.indexPlayer(player, this);
+    setPlayerLeft(player, !plugin.getUserManager().getUser(player).isSpectator());
   }
 
   void removePlayer(Player player) {
@@ -867,16 +961,69 @@ public class Arena extends BukkitRunnable {
       return;
     }
     players.remove(player);
+    ArenaRegistry.unindexPlayer(player, this);
+    setPlayerLeft(player, false);
   }
 
-  public List<Player> getPlayersLeft() {
-    List<Player> players = new ArrayList<>();
-    for (User user : plugin.getUserManager().getUsers(this)) {
-      if (!user.isSpectator()) {
-        players.add(user.getPlayer());
-      }
+  private void clearPlayers() {
+    for (Player player : players) {
+      ArenaRegistry.unindexPlayer(player, this);
+    }
+    players.clear();
+    playersLeft.clear();
+    aliveMurderers = 0;
+    aliveDetectives = 0;
+  }
+
+  /**
+   * Updates players left in game after spectator status of player changed.
+   *
+   * @param player    player whose status changed
+   * @param spectator whether player is spectator now
+   * @see User#setSpectator(boolean)
+   */
+  public void updateSpectator(Player player, boolean spectator) {
+    if (players.contains(player)) {
+      setPlayerLeft(player, !spectator);
     }
-    return players;
+  }
+
+  private void setPlayerLeft(Player player, boolean left) {
+    if (left ? playersLeft.add(player) : playersLeft.remove(player)) {
+      updateAliveCounters(getRole(player), left ? 1 : -1);
+    }
+  }
+
+  private void updateAliveCounters(Role role, int amount) {
+    if (role == Role.MURDERER) {
+      aliveMurderers += amount;
+    } else if (role == Role.DETECTIVE) {
+      aliveDetectives += amount;
+    }
+  }
+
+  /**
+   * Get players that are still in game (not spectators).
+   *
+   * @return new list of players left in game, in order they joined
+   */
+  public List<Player> getPlayersLeft() {
+    return new ArrayList<>(playersLeft);
+  }
+
+  /**
+   * @return amount of players that are still in game (not spectators), without copying them
+   */
+  public int getPlayersLeftCount() {
+    return playersLeft.size();
+  }
+
+  /**
+   * @param player player to check
+   * @return true if player is still in game (not spectator)
+   */
+  public boolean isPlayerLeft(Player player) {
+    return playersLeft.contains(player);
   }
 
   void showPlayers() {
@@ -895,6 +1042,11 @@ public class Arena extends BukkitRunnable {
     murdererLocatorReceived = false;
     bowHologram = null;
     gameCharacters.clear();
+    playerRoles.clear();
+    gameParticipants.clear();
+    leftParticipants.clear();
+    aliveMurderers = 0;
+    aliveDetectives = 0;
     allMurderer.clear();
     allDetectives.clear();
     setDetectiveDead(false);
@@ -941,7 +1093,24 @@ public class Arena extends BukkitRunnable {
   }
 
   public void setCharacter(CharacterType type, Player player) {
-    gameCharacters.put(type, player);
+    Player previous = gameCharacters.put(type, player);
+    switch (type) {
+      case MURDERER:
+        setRole(player, Role.MURDERER);
+        break;
+      case DETECTIVE:
+        setRole(player, Role.DETECTIVE);
+        break;
+      case FAKE_DETECTIVE:
+        //only one fake detective at a time, previous one becomes innocent again
+        if (previous != null) {
+          removeRole(previous, Role.FAKE_DETECTIVE);
+        }
+        setRole(player, Role.FAKE_DETECTIVE);
+        break;
+      default:
+        break;
+    }
   }
 
   public Player getCharacter(CharacterType type) {
@@ -950,6 +1119,7 @@ public class Arena extends BukkitRunnable {
 
   public void addToDetectiveList(Player player) {
     allDetectives.add(player);
+    setRole(player, Role.DETECTIVE);
   }
 
   public boolean lastAliveDetective() {
@@ -957,22 +1127,11 @@ public class Arena extends BukkitRunnable {
   }
 
   public int aliveDetective() {
-    int alive = 0;
-    for (Player p : getPlayersLeft()) {
-      if (Role.isRole(Role.ANY_DETECTIVE, p) && isDetectiveAlive(p)) {
-        alive++;
-      }
-    }
-    return alive;
+    return aliveDetectives;
   }
 
   public boolean isDetectiveAlive(Player player) {
-    for (Player p : getPlayersLeft()) {
-      if (p == player && allDetectives.contains(p)) {
-        return true;
-      }
-    }
-    return false;
+    return playersLeft.contains(player) && getRole(player) == Role.DETECTIVE;
   }
 
   public List<Player> getDetectiveList() {
@@ -981,10 +1140,42 @@ public class Arena extends BukkitRunnable {
 
   public void addToMurdererList(Player player) {
     allMurderer.add(player);
+    setRole(player, Role.MURDERER);
   }
 
   public void removeFromMurdererList(Player player) {
     allMurderer.remove(player);
+    removeRole(player, Role.MURDERER);
+  }
+
+  private void setRole(Player player, Role role) {
+    if (player == null) {
+      return;
+    }
+    Role previous = getRole(player);
+    playerRoles.put(player.getUniqueId(), role);
+    if (playersLeft.contains(player)) {
+      updateAliveCounters(previous, -1);
+      updateAliveCounters(role, 1);
+    }
+  }
+
+  private void removeRole(Player player, Role role) {
+    if (playerRoles.remove(player.getUniqueId(), role) && playersLeft.contains(player)) {
+      updateAliveCounters(role, -1);
+    }
+  }
+
+  /**
+   * Get role player is playing in this arena.
+   * Role is never {@link Role#ANY_DETECTIVE}, players without special role are innocents.
+   *
+   * @param player player to get role of
+   * @return role of the player
+   */
+  public Role getRole(Player player) {
+    Role role = playerRoles.get(player.getUniqueId());
+    return role == null ? Role.INNOCENT : role;
   }
 
 
@@ -993,22 +1184,11 @@ public class Arena extends BukkitRunnable {
   }
 
   public int aliveMurderer() {
-    int alive = 0;
-    for (Player p : getPlayersLeft()) {
-      if (allMurderer.contains(p) && isMurderAlive(p)) {
-        alive++;
-      }
-    }
-    return alive;
+    return aliveMurderers;
   }
 
   public boolean isMurderAlive(Player player) {
-    for (Player p : getPlayersLeft()) {
-      if (p == player && allMurderer.contains(p)) {
-        return true;
-      }
-    }
-    return false;
+    return playersLeft.contains(player) && getRole(player) == Role.MURDERER;
   }
 
   public List<Player> getMurdererList() {
@@ -1016,15 +1196,15 @@ public class Arena extends BukkitRunnable {
   }
 
   public int getOption(ArenaOption option) {
-    return arenaOptions.get(option);
+    return arenaOptions[option.ordinal()];
   }
 
   public void setOptionValue(ArenaOption option, int value) {
-    arenaOptions.put(option, value);
+    arenaOptions[option.ordinal()] = value;
   }
 
   public void addOptionValue(ArenaOption option, int value) {
-    arenaOptions.put(option, arenaOptions.get(option) + value);
+    arenaOptions[option.ordinal()] += value;
   }
 
   public enum BarAction {
@@ -21,6 +21,7 @@ package pl.plajer.murdermystery.arena;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 import java.util.logging.Level;
 
 import me.clip.placeholderapi.PlaceholderAPI;
@@ -44,6 +45,7 @@ import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.api.events.game.MMGameJoinAttemptEvent;
 import pl.plajer.murdermystery.api.events.game.MMGameLeaveAttemptEvent;
 import pl.plajer.murdermystery.api.events.game.MMGameStopEvent;
+import pl.plajer.murdermystery.arena.history.MatchRecord;
 import pl.plajer.murdermystery.arena.role.Role;
 import pl.plajer.murdermystery.handlers.ChatManager;
 import pl.plajer.murdermystery.handlers.PermissionsManager;
@@ -80,6 +82,21 @@ public class ArenaManager {
    * @see MMGameJoinAttemptEvent
    */
   public static void joinAttempt(Player player, Arena arena) {
+    User user = plugin.getUserManager().getUser(player);
+    if (!user.isStatsLoaded()) {
+      //don't join with missing statistics, retried once loaded or timed out
+      Debugger.debug(Level.INFO, "[{0}] Join attempt for {1} waits for statistics", arena.getId(), player.getName());
+      plugin.getUserManager().awaitStatistics(user).thenRun(() -> {
+        if (player.isOnline()) {
+          processJoinAttempt(player, arena);
+        }
+      });
+      return;
+    }
+    processJoinAttempt(player, arena);
+  }
+
+  private static void processJoinAttempt(Player player, Arena arena) {
     Debugger.debug(Level.INFO, "[{0}] Initial join attempt for {1}", arena.getId(), player.getName());
     long start = System.currentTimeMillis();
     MMGameJoinAttemptEvent gameJoinAttemptEvent = new MMGameJoinAttemptEvent(player, arena);
@@ -102,6 +119,7 @@ public class ArenaManager {
       GameParty party = plugin.getPartyHandler().getParty(player);
       if (party.getLeader().equals(player)) {
         if (arena.getMaximumPlayers() - arena.getPlayers().size() >= party.getPlayers().size()) {
+          plugin.getUserManager().preloadStatistics(party.getPlayers());
           for (Player partyPlayer : party.getPlayers()) {
             if (partyPlayer == player) {
               continue;
@@ -267,10 +285,14 @@ public class ArenaManager {
       }
     }
 
+    if (arena.getArenaState() == ArenaState.IN_GAME && plugin.getMatchHistory() != null) {
+      //role is changed below when murderer leaves, result is taken before that
+      arena.addLeftParticipant(createParticipant(arena, player, false));
+    }
     arena.getScoreboardManager().removeScoreboard(user);
     //-1 cause we didn't remove player yet
     if (arena.getArenaState() == ArenaState.IN_GAME && !user.isSpectator()) {
-      if (arena.getPlayersLeft().size() - 1 > 1) {
+      if (arena.getPlayersLeftCount() - 1 > 1) {
         if (Role.isRole(Role.MURDERER, player)) {
           arena.removeFromMurdererList(player);
           if (arena.getMurdererList().isEmpty()) {
@@ -372,6 +394,7 @@ public class ArenaManager {
 
     MMGameStopEvent gameStopEvent = new MMGameStopEvent(arena);
     Bukkit.getPluginManager().callEvent(gameStopEvent);
+    boolean played = arena.getArenaState() == ArenaState.IN_GAME;
     arena.setArenaState(ArenaState.ENDING);
     if (quickStop) {
       arena.setTimer(2);
@@ -383,7 +406,10 @@ public class ArenaManager {
     arena.getScoreboardManager().stopAllScoreboards();
     Random rand = new Random();
 
-    boolean murderWon = arena.getPlayersLeft().size() == arena.aliveMurderer();
+    boolean murderWon = arena.getPlayersLeftCount() == arena.aliveMurderer();
+    if (played && plugin.getMatchHistory() != null) {
+      plugin.getMatchHistory().record(createMatchRecord(arena, murderWon));
+    }
 
     for (final Player player : arena.getPlayers()) {
       User user = plugin.getUserManager().getUser(player);
@@ -422,7 +448,7 @@ public class ArenaManager {
         }
       }
       user.removeScoreboard();
-      if (!quickStop && plugin.getConfig().getBoolean("Firework-When-Game-Ends", true)) {
+      if (!quickStop && plugin.getGameSettings().isFireworkWhenGameEnds()) {
         new BukkitRunnable() {
           int i = 0;
 
@@ -439,6 +465,29 @@ public class ArenaManager {
     Debugger.debug(Level.INFO, "[{0}] Stop game event finished took{1}ms ", arena.getId(), System.currentTimeMillis() - start);
   }
 
+  private static MatchRecord createMatchRecord(Arena arena, boolean murderWon) {
+    List<MatchRecord.Participant> participants = new ArrayList<>();
+    for (UUID uuid : arena.getGameParticipants()) {
+      MatchRecord.Participant left = arena.getLeftParticipant(uuid);
+      if (left != null) {
+        participants.add(left);
+        continue;
+      }
+      Player player = Bukkit.getPlayer(uuid);
+      if (player != null && arena.getPlayers().contains(player)) {
+        participants.add(createParticipant(arena, player, arena.isPlayerLeft(player)));
+      }
+    }
+    long end = System.currentTimeMillis();
+    return new MatchRecord(arena.getId(), end, (int) ((end - arena.getGameStartTime()) / 1000), murderWon, participants);
+  }
+
+  private static MatchRecord.Participant createParticipant(Arena arena, Player player, boolean survived) {
+    User user = plugin.getUserManager().getUser(player);
+    return new MatchRecord.Participant(player.getUniqueId(), arena.getRole(player), user.getStat(StatsStorage.StatisticType.LOCAL_KILLS),
+      user.getStat(StatsStorage.StatisticType.LOCAL_SCORE), survived);
+  }
+
   private static String formatSummaryPlaceholders(String msg, Arena arena, Player player) {
     String formatted = msg;
     StringBuilder murders = new StringBuilder();
@@ -454,7 +503,7 @@ public class ArenaManager {
       detectives.append(p.getName()).append(", ");
     }
     detectives.deleteCharAt(detectives.length() - 2);
-    if (arena.getPlayersLeft().size() == arena.aliveMurderer()) {
+    if (arena.getPlayersLeftCount() == arena.aliveMurderer()) {
       formatted = StringUtils.replace(formatted, "%winner%", ChatManager.colorMessage("In-Game.Messages.Game-End-Messages.Winners.Murderer"));
     } else {
       formatted = StringUtils.replace(formatted, "%winner%", ChatManager.colorMessage("In-Game.Messages.Game-End-Messages.Winners.Players"));
@@ -19,8 +19,11 @@
 package pl.plajer.murdermystery.arena;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
@@ -44,6 +47,9 @@ public class ArenaRegistry {
 
   private static Main plugin = JavaPlugin.getPlugin(Main.class);
   private static List<Arena> arenas = new ArrayList<>();
+  //lookup indexes, kept in sync by arena (un)registration and Arena#addPlayer/removePlayer
+  private static Map<String, Arena> arenasById = new HashMap<>();
+  private static Map<UUID, Arena> playerArenas = new HashMap<>();
   private static int bungeeArena = -999;
 
   /**
@@ -53,12 +59,7 @@ public class ArenaRegistry {
    * @return [b]true[/b] when player is in arena, [b]false[/b] if otherwise
    */
   public static boolean isInArena(Player player) {
-    for (Arena arena : arenas) {
-      if (arena.getPlayers().contains(player)) {
-        return true;
-      }
-    }
-    return false;
+    return player != null && playerArenas.containsKey(player.getUniqueId());
   }
 
   /**
@@ -72,14 +73,7 @@ public class ArenaRegistry {
     if (p == null || !p.isOnline()) {
       return null;
     }
-    for (Arena arena : arenas) {
-      for (Player player : arena.getPlayers()) {
-        if (player.getUniqueId().equals(p.getUniqueId())) {
-          return arena;
-        }
-      }
-    }
-    return null;
+    return playerArenas.get(p.getUniqueId());
   }
 
   /**
@@ -89,24 +83,35 @@ public class ArenaRegistry {
    * @return Arena or null if not found
    */
   public static Arena getArena(String id) {
-    Arena arena = null;
-    for (Arena loopArena : arenas) {
-      if (loopArena.getId().equalsIgnoreCase(id)) {
-        arena = loopArena;
-        break;
-      }
+    if (id == null) {
+      return null;
     }
-    return arena;
+    return arenasById.get(id.toLowerCase());
   }
 
   public static void registerArena(Arena arena) {
     Debugger.debug(Level.INFO, "Registering new game instance {0}", arena.getId());
     arenas.add(arena);
+    arenasById.put(arena.getId().toLowerCase(), arena);
+    for (Player player : arena.getPlayers()) {
+      playerArenas.put(player.getUniqueId(), arena);
+    }
   }
 
   public static void unregisterArena(Arena arena) {
     Debugger.debug(Level.INFO, "Unegistering game instance {0}", arena.getId());
     arenas.remove(arena);
+    plugin.getArenaTicker().stopTicking(arena);
+    arenasById.remove(arena.getId().toLowerCase(), arena);
+    playerArenas.values().removeIf(playerArena -> playerArena == arena);
+  }
+
+  static void indexPlayer(Player player, Arena arena) {
+    playerArenas.put(player.getUniqueId(), arena);
+  }
+
+  static void unindexPlayer(Player player, Arena arena) {
+    playerArenas.remove(player.getUniqueId(), arena);
   }
 
   public static void registerArenas() {
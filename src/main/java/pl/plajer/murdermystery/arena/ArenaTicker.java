@@ -0,0 +1,175 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.bukkit.scheduler.BukkitRunnable;
+
+import pl.plajer.murdermystery.Main;
+
+/**
+ * Single repeating task that runs game logic of every started arena.
+ * <p>
+ * Each arena is ticked once per {@link #ARENA_TICK_PERIOD} server ticks, arenas are
+ * spread across phases of that period so they don't all run on the same server tick.
+ * Arenas waiting for players with nobody inside are not ticked at all.
+ */
+public class ArenaTicker extends BukkitRunnable {
+
+  /**
+   * How often (in server ticks) single arena is ticked
+   */
+  public static final int ARENA_TICK_PERIOD = 20;
+
+  private final Main plugin;
+  private final List<List<Arena>> phases = new ArrayList<>(ARENA_TICK_PERIOD);
+  private final Map<Arena, TickCost> tickCosts = new HashMap<>();
+  private int currentPhase = 0;
+  private long currentTick = 0;
+
+  public ArenaTicker(Main plugin) {
+    this.plugin = plugin;
+    for (int i = 0; i < ARENA_TICK_PERIOD; i++) {
+      phases.add(new ArrayList<>());
+    }
+    runTaskTimer(plugin, 1L, 1L);
+  }
+
+  /**
+   * Starts ticking the arena in the least occupied phase.
+   * Does nothing if arena is already ticked.
+   *
+   * @param arena arena to tick
+   */
+  public void startTicking(Arena arena) {
+    if (tickCosts.containsKey(arena)) {
+      return;
+    }
+    List<Arena> leastOccupied = phases.get(0);
+    for (List<Arena> phase : phases) {
+      if (phase.size() < leastOccupied.size()) {
+        leastOccupied = phase;
+      }
+    }
+    leastOccupied.add(arena);
+    tickCosts.put(arena, new TickCost());
+  }
+
+  /**
+   * Stops ticking the arena.
+   *
+   * @param arena arena to stop ticking
+   */
+  public void stopTicking(Arena arena) {
+    if (tickCosts.remove(arena) == null) {
+      return;
+    }
+    for (List<Arena> phase : phases) {
+      phase.remove(arena);
+    }
+  }
+
+  public boolean isTicking(Arena arena) {
+    return tickCosts.containsKey(arena);
+  }
+
+  /**
+   * @param arena arena to get tick cost of
+   * @return tick cost of the arena or null if arena is not ticked
+   */
+  public TickCost getTickCost(Arena arena) {
+    return tickCosts.get(arena);
+  }
+
+  /**
+   * @return amount of server ticks since the ticker started, main thread clock for cooldowns
+   */
+  public long getCurrentTick() {
+    return currentTick;
+  }
+
+  @Override
+  public void run() {
+    currentTick++;
+    List<Arena> phase = phases.get(currentPhase);
+    currentPhase = (currentPhase + 1) % ARENA_TICK_PERIOD;
+    //index loop, arena might get unregistered while ticking
+    for (int i = 0; i < phase.size(); i++) {
+      Arena arena = phase.get(i);
+      if (isHibernated(arena)) {
+        continue;
+      }
+      long start = System.nanoTime();
+      try {
+        arena.run();
+      } catch (Exception ex) {
+        //don't let single broken arena stop the others
+        plugin.getLogger().log(Level.SEVERE, "Game task of arena " + arena.getId() + " generated an exception", ex);
+      }
+      TickCost cost = tickCosts.get(arena);
+      if (cost != null) {
+        cost.record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private boolean isHibernated(Arena arena) {
+    return arena.getArenaState() == ArenaState.WAITING_FOR_PLAYERS && arena.getPlayers().isEmpty();
+  }
+
+  /**
+   * Time spent running game logic of single arena.
+   */
+  public static class TickCost {
+
+    private long lastNanos;
+    private long maxNanos;
+    private long totalNanos;
+    private long ticks;
+
+    private void record(long nanos) {
+      lastNanos = nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      totalNanos += nanos;
+      ticks++;
+    }
+
+    public double getLastMillis() {
+      return lastNanos / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+      return maxNanos / 1_000_000.0;
+    }
+
+    public double getAverageMillis() {
+      return ticks == 0 ? 0 : (totalNanos / (double) ticks) / 1_000_000.0;
+    }
+
+    public long getTicks() {
+      return ticks;
+    }
+  }
+
+}
@@ -153,7 +153,7 @@ public class ArenaUtils {
   }
 
   public static void dropBowAndAnnounce(Arena arena, Player victim) {
-    if (arena.getPlayersLeft().size() > 1) {
+    if (arena.getPlayersLeftCount() > 1) {
       for (Player p : arena.getPlayers()) {
         p.sendTitle(ChatManager.colorMessage("In-Game.Messages.Bow-Messages.Bow-Dropped-Title", p), null, 5, 40, 5);
       }
@@ -181,7 +181,7 @@ public class ArenaUtils {
 
         arena.setCharacter(Arena.CharacterType.FAKE_DETECTIVE, player);
         ItemPosition.setItem(player, ItemPosition.BOW, new ItemStack(Material.BOW, 1));
-        ItemPosition.setItem(player, ItemPosition.INFINITE_ARROWS, new ItemStack(Material.ARROW, plugin.getConfig().getInt("Detective-Fake-Arrows", 3)));
+        ItemPosition.setItem(player, ItemPosition.INFINITE_ARROWS, new ItemStack(Material.ARROW, plugin.getGameSettings().getDetectiveFakeArrows()));
         ChatManager.broadcast(arena, ChatManager.colorMessage("In-Game.Messages.Bow-Messages.Pickup-Bow-Message", player));
       }
     });
@@ -0,0 +1,267 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena.history;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * History of finished games stored in append-only journal (plugins/MurderMystery/history/).
+ * <p>
+ * Journal is split into segments of at most {@link #SEGMENT_SIZE} bytes, only the newest
+ * {@link #MAX_SEGMENTS} segments are kept. Offsets of the last {@link #RECENT_LIMIT} games
+ * of every player are kept in memory, so looking up recent games reads only these records.
+ * All file access happens on single dedicated thread.
+ *
+ * @see MatchJournalSegment
+ */
+public class MatchHistory {
+
+  public static final long SEGMENT_SIZE = 1024 * 1024;
+  public static final int MAX_SEGMENTS = 32;
+  public static final int RECENT_LIMIT = 20;
+
+  private final Main plugin;
+  private final File folder;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "MurderMystery Match History");
+    thread.setDaemon(true);
+    return thread;
+  });
+  //owned by the executor thread
+  private final TreeMap<Integer, MatchJournalSegment> segments = new TreeMap<>();
+  private MatchJournalSegment active;
+  //segment id in high and record offset in low 32 bits, oldest first
+  private final Map<UUID, long[]> recent = new HashMap<>();
+
+  public MatchHistory(Main plugin) {
+    this.plugin = plugin;
+    this.folder = new File(plugin.getDataFolder(), "history");
+    executor.execute(this::open);
+  }
+
+  private void open() {
+    long start = System.currentTimeMillis();
+    try {
+      if (!folder.exists() && !folder.mkdirs()) {
+        throw new IOException("Cannot create history folder");
+      }
+      String[] files = folder.list();
+      List<Integer> ids = new ArrayList<>();
+      for (String file : files == null ? new String[0] : files) {
+        int id = MatchJournalSegment.parseId(file);
+        if (id != -1) {
+          ids.add(id);
+        }
+      }
+      Collections.sort(ids);
+      if (ids.isEmpty()) {
+        ids.add(0);
+      }
+      for (int i = 0; i < ids.size(); i++) {
+        int id = ids.get(i);
+        MatchJournalSegment segment = new MatchJournalSegment(folder, id);
+        segment.load(i == ids.size() - 1, (uuid, offset) -> index(uuid, position(id, offset)));
+        segments.put(id, segment);
+      }
+      active = segments.lastEntry().getValue();
+    } catch (IOException ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not open match history, games won't be recorded", ex);
+      return;
+    }
+    Debugger.debug(Level.INFO, "Match history loaded {0} segments with {1} players took {2}ms", segments.size(), recent.size(), System.currentTimeMillis() - start);
+  }
+
+  private static long position(int segment, long offset) {
+    return ((long) segment << 32) | offset;
+  }
+
+  private void index(UUID uuid, long position) {
+    long[] positions = recent.get(uuid);
+    if (positions == null) {
+      positions = new long[] {position};
+    } else if (positions.length < RECENT_LIMIT) {
+      positions = Arrays.copyOf(positions, positions.length + 1);
+      positions[positions.length - 1] = position;
+    } else {
+      System.arraycopy(positions, 1, positions, 0, positions.length - 1);
+      positions[positions.length - 1] = position;
+    }
+    recent.put(uuid, positions);
+  }
+
+  /**
+   * Appends the game to the journal asynchronously.
+   *
+   * @param record finished game
+   */
+  public void record(MatchRecord record) {
+    if (executor.isShutdown()) {
+      return;
+    }
+    executor.execute(() -> append(record));
+  }
+
+  private void append(MatchRecord record) {
+    if (active == null) {
+      return;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+      DataOutputStream out = new DataOutputStream(bytes);
+      record.write(out);
+      out.flush();
+      byte[] payload = bytes.toByteArray();
+      if (active.size() > 0 && active.size() + MatchJournalSegment.FRAME_HEADER + payload.length > SEGMENT_SIZE) {
+        rotate();
+      }
+      List<UUID> participants = new ArrayList<>(record.getParticipants().size());
+      for (MatchRecord.Participant participant : record.getParticipants()) {
+        participants.add(participant.getUuid());
+      }
+      long offset = active.append(payload, participants);
+      for (UUID uuid : participants) {
+        index(uuid, position(active.getId(), offset));
+      }
+    } catch (IOException ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not record game in arena " + record.getArenaId() + " to match history", ex);
+    }
+  }
+
+  private void rotate() throws IOException {
+    active.seal();
+    MatchJournalSegment next = new MatchJournalSegment(folder, active.getId() + 1);
+    next.load(true, (uuid, offset) -> {
+    });
+    segments.put(next.getId(), next);
+    active = next;
+    if (segments.size() <= MAX_SEGMENTS) {
+      return;
+    }
+    while (segments.size() > MAX_SEGMENTS) {
+      MatchJournalSegment oldest = segments.pollFirstEntry().getValue();
+      if (!oldest.delete()) {
+        plugin.getLogger().log(Level.WARNING, "Could not delete old match history segment " + oldest.getId());
+      }
+    }
+    //forget games stored in deleted segments
+    long first = position(segments.firstKey(), 0);
+    Iterator<Map.Entry<UUID, long[]>> iterator = recent.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<UUID, long[]> entry = iterator.next();
+      long[] positions = entry.getValue();
+      int kept = 0;
+      while (kept < positions.length && positions[positions.length - 1 - kept] >= first) {
+        kept++;
+      }
+      if (kept == 0) {
+        iterator.remove();
+      } else if (kept < positions.length) {
+        entry.setValue(Arrays.copyOfRange(positions, positions.length - kept, positions.length));
+      }
+    }
+  }
+
+  /**
+   * Reads recent games of the player, at most {@link #RECENT_LIMIT} are available.
+   *
+   * @param uuid  uuid of the player
+   * @param limit maximum amount of games to read
+   * @return future completed on the main thread with games sorted from the newest
+   */
+  public CompletableFuture<List<MatchRecord>> getRecentMatches(UUID uuid, int limit) {
+    CompletableFuture<List<MatchRecord>> future = new CompletableFuture<>();
+    if (executor.isShutdown()) {
+      future.complete(Collections.emptyList());
+      return future;
+    }
+    executor.execute(() -> {
+      List<MatchRecord> matches = readRecent(uuid, limit);
+      if (plugin.isEnabled()) {
+        Bukkit.getScheduler().runTask(plugin, () -> future.complete(matches));
+      } else {
+        future.cancel(false);
+      }
+    });
+    return future;
+  }
+
+  private List<MatchRecord> readRecent(UUID uuid, int limit) {
+    long[] positions = recent.get(uuid);
+    if (positions == null) {
+      return Collections.emptyList();
+    }
+    List<MatchRecord> matches = new ArrayList<>(Math.min(limit, positions.length));
+    for (int i = positions.length - 1; i >= 0 && matches.size() < limit; i--) {
+      MatchJournalSegment segment = segments.get((int) (positions[i] >>> 32));
+      if (segment == null) {
+        continue;
+      }
+      try {
+        matches.add(segment.read(positions[i] & 0xFFFFFFFFL));
+      } catch (IOException ex) {
+        Debugger.debug(Level.WARNING, "Could not read match history record {0}", ex.getMessage());
+      }
+    }
+    return matches;
+  }
+
+  public void shutdown() {
+    executor.execute(() -> {
+      if (active == null) {
+        return;
+      }
+      try {
+        active.seal();
+      } catch (IOException ex) {
+        plugin.getLogger().log(Level.WARNING, "Could not close match history", ex);
+      }
+    });
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        plugin.getLogger().log(Level.WARNING, "Match history didn't finish pending writes in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Single segment of {@link MatchHistory} journal.
+ * <p>
+ * Data file is sequence of length prefixed records (4 bytes of length, 4 bytes of CRC32, record bytes)
+ * which are only ever appended. Index file holds one entry per participant of every record
+ * (16 bytes of UUID + 8 bytes of record offset) so the journal doesn't have to be read to find games of a player.
+ */
+class MatchJournalSegment {
+
+  static final int FRAME_HEADER = 8;
+  private static final int INDEX_ENTRY = 24;
+
+  private final int id;
+  private final File dataFile;
+  private final File indexFile;
+  //open only while segment is the one being appended to
+  private FileChannel dataChannel;
+  private FileChannel indexChannel;
+  private long size;
+
+  MatchJournalSegment(File folder, int id) {
+    this.id = id;
+    this.dataFile = new File(folder, String.format("%08d.journal", id));
+    this.indexFile = new File(folder, String.format("%08d.index", id));
+  }
+
+  /**
+   * @param fileName name of file in the history folder
+   * @return id of the segment or -1 if file is not journal segment
+   */
+  static int parseId(String fileName) {
+    if (!fileName.endsWith(".journal")) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(fileName.substring(0, fileName.length() - ".journal".length()));
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  int getId() {
+    return id;
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * Reads offset index of the segment. Active segment is always verified against its data,
+   * torn record at the end (e.g. crash in the middle of write) is cut off and the index is rebuilt.
+   *
+   * @param active   true if records will be appended to this segment
+   * @param consumer consumer of participant UUIDs and their record offsets, in append order
+   */
+  void load(boolean active, ObjLongConsumer<UUID> consumer) throws IOException {
+    size = dataFile.length();
+    if (active || !indexFile.exists() || indexFile.length() % INDEX_ENTRY != 0) {
+      recover();
+    }
+    try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) file.length());
+      file.getChannel().read(buffer, 0);
+      buffer.flip();
+      while (buffer.remaining() >= INDEX_ENTRY) {
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        consumer.accept(uuid, buffer.getLong());
+      }
+    }
+    if (active) {
+      dataChannel = new RandomAccessFile(dataFile, "rw").getChannel();
+      indexChannel = new RandomAccessFile(indexFile, "rw").getChannel();
+    }
+  }
+
+  private void recover() throws IOException {
+    ByteBuffer index = ByteBuffer.allocate(1024);
+    long offset = 0;
+    try (RandomAccessFile file = new RandomAccessFile(dataFile, "rw")) {
+      long length = file.length();
+      while (offset + FRAME_HEADER <= length) {
+        file.seek(offset);
+        int recordLength = file.readInt();
+        int checksum = file.readInt();
+        if (recordLength <= 0 || offset + FRAME_HEADER + recordLength > length) {
+          break;
+        }
+        byte[] payload = new byte[recordLength];
+        file.readFully(payload);
+        if (checksum(payload) != checksum) {
+          break;
+        }
+        for (MatchRecord.Participant participant : MatchRecord.read(new DataInputStream(new ByteArrayInputStream(payload))).getParticipants()) {
+          if (index.remaining() < INDEX_ENTRY) {
+            ByteBuffer grown = ByteBuffer.allocate(index.capacity() * 2);
+            index.flip();
+            grown.put(index);
+            index = grown;
+          }
+          index.putLong(participant.getUuid().getMostSignificantBits());
+          index.putLong(participant.getUuid().getLeastSignificantBits());
+          index.putLong(offset);
+        }
+        offset += FRAME_HEADER + recordLength;
+      }
+      if (offset != length) {
+        file.setLength(offset);
+      }
+    }
+    size = offset;
+    index.flip();
+    try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+      file.setLength(0);
+      file.getChannel().write(index, 0);
+    }
+  }
+
+  private static int checksum(byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * @param payload      serialized record
+   * @param participants UUIDs to index the record under
+   * @return offset of the appended record
+   */
+  long append(byte[] payload, List<UUID> participants) throws IOException {
+    long offset = size;
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+    frame.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+    writeFully(dataChannel, frame, offset);
+    size += frame.capacity();
+    //index is written after the data so it never points past the end of the journal
+    ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY * participants.size());
+    for (UUID uuid : participants) {
+      index.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).putLong(offset);
+    }
+    index.flip();
+    writeFully(indexChannel, index, indexChannel.size());
+    return offset;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  MatchRecord read(long offset) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(dataFile, "r")) {
+      file.seek(offset);
+      int recordLength = file.readInt();
+      int checksum = file.readInt();
+      byte[] payload = new byte[recordLength];
+      file.readFully(payload);
+      if (checksum(payload) != checksum) {
+        throw new IOException("Corrupted match record at " + offset + " of " + dataFile.getName());
+      }
+      return MatchRecord.read(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+  }
+
+  /**
+   * Flushes and closes the segment, no more records can be appended afterwards.
+   */
+  void seal() throws IOException {
+    if (dataChannel == null) {
+      return;
+    }
+    dataChannel.force(false);
+    indexChannel.force(false);
+    dataChannel.close();
+    indexChannel.close();
+    dataChannel = null;
+    indexChannel = null;
+  }
+
+  boolean delete() {
+    return dataFile.delete() & (!indexFile.exists() || indexFile.delete());
+  }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena.history;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import pl.plajer.murdermystery.arena.role.Role;
+
+/**
+ * Immutable summary of single finished game stored in {@link MatchHistory}.
+ */
+public class MatchRecord {
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final String arenaId;
+  private final long endTime;
+  private final int duration;
+  private final boolean murdererWon;
+  private final List<Participant> participants;
+
+  /**
+   * @param arenaId      id of the arena game was played in
+   * @param endTime      epoch millis of game end
+   * @param duration     duration of the game in seconds
+   * @param murdererWon  true if murderers won, false if innocents won
+   * @param participants players who were in the arena when the game started
+   */
+  public MatchRecord(String arenaId, long endTime, int duration, boolean murdererWon, List<Participant> participants) {
+    this.arenaId = arenaId;
+    this.endTime = endTime;
+    this.duration = duration;
+    this.murdererWon = murdererWon;
+    this.participants = Collections.unmodifiableList(new ArrayList<>(participants));
+  }
+
+  public String getArenaId() {
+    return arenaId;
+  }
+
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * @return duration of the game in seconds
+   */
+  public int getDuration() {
+    return duration;
+  }
+
+  public boolean isMurdererWon() {
+    return murdererWon;
+  }
+
+  public List<Participant> getParticipants() {
+    return participants;
+  }
+
+  /**
+   * @param uuid uuid of the player
+   * @return participant entry of the player or null if he didn't play this game
+   */
+  public Participant getParticipant(UUID uuid) {
+    for (Participant participant : participants) {
+      if (participant.getUuid().equals(uuid)) {
+        return participant;
+      }
+    }
+    return null;
+  }
+
+  void write(DataOutputStream out) throws IOException {
+    out.writeByte(FORMAT_VERSION);
+    out.writeUTF(arenaId);
+    out.writeLong(endTime);
+    out.writeInt(duration);
+    out.writeBoolean(murdererWon);
+    out.writeShort(participants.size());
+    for (Participant participant : participants) {
+      out.writeLong(participant.uuid.getMostSignificantBits());
+      out.writeLong(participant.uuid.getLeastSignificantBits());
+      //role names are stable unlike their ordinals
+      out.writeUTF(participant.role.name());
+      out.writeInt(participant.kills);
+      out.writeInt(participant.score);
+      out.writeBoolean(participant.survived);
+    }
+  }
+
+  static MatchRecord read(DataInputStream in) throws IOException {
+    int version = in.readUnsignedByte();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unknown match record version " + version);
+    }
+    String arenaId = in.readUTF();
+    long endTime = in.readLong();
+    int duration = in.readInt();
+    boolean murdererWon = in.readBoolean();
+    int size = in.readUnsignedShort();
+    List<Participant> participants = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      UUID uuid = new UUID(in.readLong(), in.readLong());
+      Role role;
+      try {
+        role = Role.valueOf(in.readUTF());
+      } catch (IllegalArgumentException ex) {
+        role = Role.INNOCENT;
+      }
+      participants.add(new Participant(uuid, role, in.readInt(), in.readInt(), in.readBoolean()));
+    }
+    return new MatchRecord(arenaId, endTime, duration, murdererWon, participants);
+  }
+
+  public static class Participant {
+
+    private final UUID uuid;
+    private final Role role;
+    private final int kills;
+    private final int score;
+    private final boolean survived;
+
+    public Participant(UUID uuid, Role role, int kills, int score, boolean survived) {
+      this.uuid = uuid;
+      this.role = role;
+      this.kills = kills;
+      this.score = score;
+      this.survived = survived;
+    }
+
+    public UUID getUuid() {
+      return uuid;
+    }
+
+    /**
+     * @return role player had at the end of the game
+     */
+    public Role getRole() {
+      return role;
+    }
+
+    public int getKills() {
+      return kills;
+    }
+
+    public int getScore() {
+      return score;
+    }
+
+    public boolean isSurvived() {
+      return survived;
+    }
+
+    /**
+     * @param record game this participant played
+     * @return true if participant was on the winning side
+     */
+    public boolean isWinner(MatchRecord record) {
+      return (role == Role.MURDERER) == record.isMurdererWon();
+    }
+
+  }
+
+}
@@ -136,14 +136,8 @@ public class ScoreboardManager {
     formattedLine = StringUtils.replace(formattedLine, "%TIME%", String.valueOf(arena.getTimer()));
     formattedLine = StringUtils.replace(formattedLine, "%FORMATTED_TIME%", StringFormatUtils.formatIntoMMSS(arena.getTimer()));
     formattedLine = StringUtils.replace(formattedLine, "%MAPNAME%", arena.getMapName());
-    int innocents = 0;
-    for (Player p : arena.getPlayersLeft()) {
-      if (Role.isRole(Role.MURDERER, p)) {
-        continue;
-      }
-      innocents++;
-    }
-    if (!arena.getPlayersLeft().contains(user.getPlayer())) {
+    int innocents = arena.getPlayersLeftCount() - arena.aliveMurderer();
+    if (!arena.isPlayerLeft(user.getPlayer())) {
       formattedLine = StringUtils.replace(formattedLine, "%ROLE%", ChatManager.colorMessage("Scoreboard.Roles.Dead"));
     } else {
       if (Role.isRole(Role.MURDERER, user.getPlayer())) {
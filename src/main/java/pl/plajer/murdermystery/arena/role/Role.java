@@ -23,8 +23,6 @@ import org.bukkit.entity.Player;
 import pl.plajer.murdermystery.arena.Arena;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
 
-import java.util.Arrays;
-
 /**
  * @author Plajer
  * <p>
@@ -66,29 +64,11 @@ public enum Role {
     if (arena == null) {
       return false;
     }
-    switch (role) {
-      case DETECTIVE:
-        if (!arena.isCharacterSet(Arena.CharacterType.DETECTIVE)) {
-          return false;
-        }
-        return arena.getDetectiveList().contains(player);
-      case FAKE_DETECTIVE:
-        if (!arena.isCharacterSet(Arena.CharacterType.FAKE_DETECTIVE)) {
-          return false;
-        }
-        return arena.getCharacter(Arena.CharacterType.FAKE_DETECTIVE).equals(player);
-      case MURDERER:
-        if (!arena.isCharacterSet(Arena.CharacterType.MURDERER)) {
-          return false;
-        }
-        return arena.getMurdererList().contains(player);
-      case ANY_DETECTIVE:
-        return isRole(Role.DETECTIVE, player) || isRole(Role.FAKE_DETECTIVE, player);
-      case INNOCENT:
-        return !isRole(Role.MURDERER, player) && !isRole(Role.ANY_DETECTIVE, player);
-      default:
-        return false;
+    Role playerRole = arena.getRole(player);
+    if (role == ANY_DETECTIVE) {
+      return playerRole == DETECTIVE || playerRole == FAKE_DETECTIVE;
     }
+    return playerRole == role;
   }
 
   /**
@@ -98,10 +78,7 @@ public enum Role {
    * @return true if is playing one role, false otherwise
    */
   public static boolean isAnyRole(Player player){
-    Arena arena = ArenaRegistry.getArena(player);
-    if (arena == null) {
-      return false;
-    }
-    return Arrays.stream(Role.values()).anyMatch(role -> isRole(role, player));
+    //every player in arena plays at least innocent role
+    return ArenaRegistry.getArena(player) != null;
   }
 }
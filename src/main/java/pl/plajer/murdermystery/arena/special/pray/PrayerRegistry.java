@@ -97,7 +97,7 @@ public class PrayerRegistry {
         break;
       case BOW_TIME:
         ItemPosition.addItem(player, ItemPosition.BOW, new ItemStack(Material.BOW, 1));
-        ItemPosition.setItem(player, ItemPosition.ARROWS, new ItemStack(Material.ARROW, plugin.getConfig().getInt("Detective-Prayer-Arrows", 2)));
+        ItemPosition.setItem(player, ItemPosition.ARROWS, new ItemStack(Material.ARROW, plugin.getGameSettings().getDetectivePrayerArrows()));
         break;
       case DETECTIVE_REVELATION:
         String detectiveName;
@@ -116,7 +116,7 @@ public class PrayerRegistry {
 
           @Override
           public void run() {
-            if (arena == null || arena.getArenaState() != ArenaState.IN_GAME || !arena.getPlayersLeft().contains(player)) {
+            if (arena == null || arena.getArenaState() != ArenaState.IN_GAME || !arena.isPlayerLeft(player)) {
               this.cancel();
               return;
             }
@@ -38,7 +38,9 @@ import org.bukkit.entity.Player;
 
 import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
+import pl.plajer.murdermystery.commands.arguments.admin.HistoryArgument;
 import pl.plajer.murdermystery.commands.arguments.admin.ListArenasArgument;
+import pl.plajer.murdermystery.commands.arguments.admin.PerformanceArgument;
 import pl.plajer.murdermystery.commands.arguments.admin.arena.DeleteArgument;
 import pl.plajer.murdermystery.commands.arguments.admin.arena.ForceStartArgument;
 import pl.plajer.murdermystery.commands.arguments.admin.arena.ReloadArgument;
@@ -89,6 +91,8 @@ public class ArgumentsRegistry implements CommandExecutor {
     new ForceStartArgument(this);
     new StopArgument(this);
     new ReloadArgument(this);
+    new PerformanceArgument(this);
+    new HistoryArgument(this);
   }
 
   @Override
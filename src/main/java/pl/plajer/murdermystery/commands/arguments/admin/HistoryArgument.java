@@ -0,0 +1,90 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.commands.arguments.admin;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import pl.plajer.murdermystery.arena.history.MatchHistory;
+import pl.plajer.murdermystery.arena.history.MatchRecord;
+import pl.plajer.murdermystery.commands.arguments.ArgumentsRegistry;
+import pl.plajer.murdermystery.commands.arguments.data.CommandArgument;
+import pl.plajer.murdermystery.commands.arguments.data.LabelData;
+import pl.plajer.murdermystery.commands.arguments.data.LabeledCommandArgument;
+import pl.plajer.murdermystery.handlers.ChatManager;
+
+public class HistoryArgument {
+
+  private static final int SHOWN_GAMES = 10;
+
+  public HistoryArgument(ArgumentsRegistry registry) {
+    registry.mapArgument("murdermysteryadmin", new LabeledCommandArgument("history", "murdermystery.admin.history", CommandArgument.ExecutorType.BOTH,
+      new LabelData("/mma history &6<player/uuid>", "/mma history <player/uuid>", "&7Shows recent games of the player\n&6Permission: &7murdermystery.admin.history")) {
+      @Override
+      public void execute(CommandSender sender, String[] args) {
+        MatchHistory history = registry.getPlugin().getMatchHistory();
+        if (history == null) {
+          sender.sendMessage(ChatManager.colorRawMessage("&cMatch history is disabled in config.yml"));
+          return;
+        }
+        if (args.length < 2) {
+          sender.sendMessage(ChatManager.colorRawMessage("&cUsage: /mma history <player/uuid>"));
+          return;
+        }
+        UUID uuid = resolveUuid(args[1]);
+        if (uuid == null) {
+          sender.sendMessage(ChatManager.colorRawMessage("&cPlayer must be online or given by UUID"));
+          return;
+        }
+        history.getRecentMatches(uuid, SHOWN_GAMES).thenAccept(matches -> {
+          sender.sendMessage(ChatManager.colorRawMessage("&6Recent games of " + args[1] + " &7(" + matches.size() + ")"));
+          SimpleDateFormat format = new SimpleDateFormat("dd.MM HH:mm");
+          for (MatchRecord match : matches) {
+            MatchRecord.Participant participant = match.getParticipant(uuid);
+            if (participant == null) {
+              continue;
+            }
+            sender.sendMessage(ChatManager.colorRawMessage("&e" + format.format(new Date(match.getEndTime())) + " &7" + match.getArenaId()
+              + " " + (participant.isWinner(match) ? "&aWin" : "&cLose") + " &7as " + participant.getRole().name().toLowerCase()
+              + ", " + participant.getKills() + " kills, " + participant.getScore() + " score &8(" + match.getDuration() + "s, "
+              + match.getParticipants().size() + " players)"));
+          }
+        });
+      }
+    });
+  }
+
+  private UUID resolveUuid(String argument) {
+    Player player = Bukkit.getPlayerExact(argument);
+    if (player != null) {
+      return player.getUniqueId();
+    }
+    try {
+      return UUID.fromString(argument);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+}
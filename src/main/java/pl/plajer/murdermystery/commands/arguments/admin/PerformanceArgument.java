@@ -0,0 +1,81 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.commands.arguments.admin;
+
+import java.util.Map;
+
+import org.bukkit.command.CommandSender;
+
+import pl.plajer.murdermystery.arena.Arena;
+import pl.plajer.murdermystery.arena.ArenaRegistry;
+import pl.plajer.murdermystery.arena.ArenaTicker;
+import pl.plajer.murdermystery.commands.arguments.ArgumentsRegistry;
+import pl.plajer.murdermystery.commands.arguments.data.CommandArgument;
+import pl.plajer.murdermystery.commands.arguments.data.LabelData;
+import pl.plajer.murdermystery.commands.arguments.data.LabeledCommandArgument;
+import pl.plajer.murdermystery.handlers.ChatManager;
+import pl.plajer.murdermystery.user.data.MysqlAccess;
+import pl.plajer.murdermystery.user.data.MysqlManager;
+import pl.plajer.murdermystery.user.data.QueryTimings;
+import pl.plajerlair.commonsbox.number.NumberUtils;
+
+public class PerformanceArgument {
+
+  public PerformanceArgument(ArgumentsRegistry registry) {
+    registry.mapArgument("murdermysteryadmin", new LabeledCommandArgument("performance", "murdermystery.admin.performance", CommandArgument.ExecutorType.BOTH,
+      new LabelData("/mma performance", "/mma performance", "&7Shows how long game tasks of arenas and database queries take\n&6Permission: &7murdermystery.admin.performance")) {
+      @Override
+      public void execute(CommandSender sender, String[] args) {
+        sender.sendMessage(ChatManager.colorRawMessage("&6Arena tick times &7(avg / max / last)"));
+        for (Arena arena : ArenaRegistry.getArenas()) {
+          ArenaTicker.TickCost cost = registry.getPlugin().getArenaTicker().getTickCost(arena);
+          if (cost == null) {
+            sender.sendMessage(ChatManager.colorRawMessage("&e" + arena.getId() + "&7: not running"));
+            continue;
+          }
+          sender.sendMessage(ChatManager.colorRawMessage("&e" + arena.getId() + "&7: " + NumberUtils.round(cost.getAverageMillis(), 3) + "ms / "
+            + NumberUtils.round(cost.getMaxMillis(), 3) + "ms / " + NumberUtils.round(cost.getLastMillis(), 3) + "ms &8(" + cost.getTicks() + " ticks)"));
+        }
+        if (registry.getPlugin().getUserManager().getDatabase() instanceof MysqlManager) {
+          printDatabaseTimings(sender, ((MysqlManager) registry.getPlugin().getUserManager().getDatabase()).getAccess());
+        }
+      }
+    });
+  }
+
+  private void printDatabaseTimings(CommandSender sender, MysqlAccess access) {
+    QueryTimings borrow = access.getBorrowTimings();
+    sender.sendMessage(ChatManager.colorRawMessage("&6MySQL pool &7(in use / peak / slow borrows / failed borrows)"));
+    sender.sendMessage(ChatManager.colorRawMessage("&e" + access.getActiveConnections() + " / " + access.getPeakConnections() + " / "
+      + access.getSlowBorrows() + " / " + borrow.getFailures() + " &8(borrow avg " + NumberUtils.round(borrow.getAverageMillis(), 3) + "ms, max "
+      + NumberUtils.round(borrow.getMaxMillis(), 3) + "ms)"));
+    sender.sendMessage(ChatManager.colorRawMessage("&6MySQL query times &7(avg / p50 / p95 / max)"));
+    for (Map.Entry<String, QueryTimings> entry : access.getTimings().entrySet()) {
+      QueryTimings timings = entry.getValue();
+      sender.sendMessage(ChatManager.colorRawMessage("&e" + entry.getKey() + "&7: " + NumberUtils.round(timings.getAverageMillis(), 3) + "ms / "
+        + formatBucket(timings.getPercentileMillis(50)) + " / " + formatBucket(timings.getPercentileMillis(95)) + " / "
+        + NumberUtils.round(timings.getMaxMillis(), 3) + "ms &8(" + timings.getCount() + " queries, " + timings.getFailures() + " failed)"));
+    }
+  }
+
+  private String formatBucket(long millis) {
+    return millis == -1 ? ">" + QueryTimings.BUCKETS[QueryTimings.BUCKETS.length - 1] + "ms" : "<" + millis + "ms";
+  }
+
+}
@@ -65,6 +65,7 @@ public class ReloadArgument {
         long start = System.currentTimeMillis();
 
         registry.getPlugin().reloadConfig();
+        registry.getPlugin().reloadGameSettings();
         LanguageManager.reloadConfig();
 
         for (Arena arena : ArenaRegistry.getArenas()) {
@@ -18,26 +18,20 @@
 
 package pl.plajer.murdermystery.commands.arguments.game;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.lang.StringUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 
-import pl.plajer.murdermystery.ConfigPreferences;
 import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.commands.arguments.ArgumentsRegistry;
 import pl.plajer.murdermystery.commands.arguments.data.CommandArgument;
 import pl.plajer.murdermystery.commands.completion.CompletableArgument;
 import pl.plajer.murdermystery.handlers.ChatManager;
-import pl.plajer.murdermystery.user.data.MysqlManager;
+import pl.plajer.murdermystery.user.data.LeaderboardEntry;
+import pl.plajer.murdermystery.user.data.NameCache;
 
 /**
  * @author Plajer
@@ -80,33 +74,25 @@ public class LeaderboardArgument {
   }
 
   private void printLeaderboard(CommandSender sender, StatsStorage.StatisticType statisticType) {
-    LinkedHashMap<UUID, Integer> stats = (LinkedHashMap<UUID, Integer>) StatsStorage.getStats(statisticType);
-    sender.sendMessage(ChatManager.colorMessage("Commands.Statistics.Header"));
-    String statistic = StringUtils.capitalize(statisticType.toString().toLowerCase().replace("_", " "));
-    for (int i = 0; i < 10; i++) {
-      try {
-        UUID current = (UUID) stats.keySet().toArray()[stats.keySet().toArray().length - 1];
-        sender.sendMessage(formatMessage(statistic, Bukkit.getOfflinePlayer(current).getName(), i + 1, stats.get(current)));
-        stats.remove(current);
-      } catch (IndexOutOfBoundsException ex) {
-        sender.sendMessage(formatMessage(statistic, "Empty", i + 1, 0));
-      } catch (NullPointerException ex) {
-        UUID current = (UUID) stats.keySet().toArray()[stats.keySet().toArray().length - 1];
-        if (registry.getPlugin().getConfigPreferences().getOption(ConfigPreferences.Option.DATABASE_ENABLED)) {
-          try (Connection connection = registry.getPlugin().getMysqlDatabase().getConnection()) {
-            Statement statement = connection.createStatement();
-            ResultSet set = statement.executeQuery("SELECT name FROM " + ((MysqlManager) registry.getPlugin().getUserManager().getDatabase()).getTableName() + " WHERE UUID='" + current.toString() + "'");
-            if (set.next()) {
-              sender.sendMessage(formatMessage(statistic, set.getString(1), i + 1, stats.get(current)));
-              continue;
-            }
-          } catch (SQLException ignored) {
-            //it has failed second time, cannot continue
-          }
+    List<LeaderboardEntry> leaderboard = StatsStorage.getLeaderboard(statisticType);
+    List<UUID> listed = new ArrayList<>();
+    for (int i = 0; i < 10 && i < leaderboard.size(); i++) {
+      listed.add(leaderboard.get(i).getUuid());
+    }
+    NameCache nameCache = registry.getPlugin().getUserManager().getNameCache();
+    nameCache.resolve(listed).thenRun(() -> {
+      sender.sendMessage(ChatManager.colorMessage("Commands.Statistics.Header"));
+      String statistic = StringUtils.capitalize(statisticType.toString().toLowerCase().replace("_", " "));
+      for (int i = 0; i < 10; i++) {
+        if (i >= leaderboard.size()) {
+          sender.sendMessage(formatMessage(statistic, "Empty", i + 1, 0));
+          continue;
         }
-        sender.sendMessage(formatMessage(statistic, "Unknown Player", i + 1, stats.get(current)));
+        LeaderboardEntry entry = leaderboard.get(i);
+        String name = nameCache.getName(entry.getUuid());
+        sender.sendMessage(formatMessage(statistic, name == null ? "Unknown Player" : name, i + 1, entry.getValue()));
       }
-    }
+    });
   }
 
   private String formatMessage(String statisticName, String playerName, int position, int value) {
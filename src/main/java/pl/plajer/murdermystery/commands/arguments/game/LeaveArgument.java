@@ -44,7 +44,7 @@ public class LeaveArgument {
     registry.mapArgument("murdermystery", new CommandArgument("leave", "", CommandArgument.ExecutorType.PLAYER) {
       @Override
       public void execute(CommandSender sender, String[] args) {
-        if (!registry.getPlugin().getConfig().getBoolean("Disable-Leave-Command", false)) {
+        if (!registry.getPlugin().getGameSettings().isDisableLeaveCommand()) {
           Player player = (Player) sender;
           if (!Utils.checkIsInGameInstance((Player) sender)) {
             return;
@@ -50,14 +50,23 @@ public class StatsArgument {
         } else {
           sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Header-Other", player).replace("%player%", player.getName()));
         }
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Kills", player) + user.getStat(StatsStorage.StatisticType.KILLS));
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Deaths", player) + user.getStat(StatsStorage.StatisticType.DEATHS));
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Wins", player) + user.getStat(StatsStorage.StatisticType.WINS));
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Loses", player) + user.getStat(StatsStorage.StatisticType.LOSES));
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Games-Played", player) + user.getStat(StatsStorage.StatisticType.GAMES_PLAYED));
-        sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Highest-Score", player) + user.getStat(StatsStorage.StatisticType.HIGHEST_SCORE));
+        sendStat(sender, player, user, "Kills", StatsStorage.StatisticType.KILLS);
+        sendStat(sender, player, user, "Deaths", StatsStorage.StatisticType.DEATHS);
+        sendStat(sender, player, user, "Wins", StatsStorage.StatisticType.WINS);
+        sendStat(sender, player, user, "Loses", StatsStorage.StatisticType.LOSES);
+        sendStat(sender, player, user, "Games-Played", StatsStorage.StatisticType.GAMES_PLAYED);
+        sendStat(sender, player, user, "Highest-Score", StatsStorage.StatisticType.HIGHEST_SCORE);
         sender.sendMessage(ChatManager.colorMessage("Commands.Stats-Command.Footer", player));
       }
+
+      private void sendStat(CommandSender sender, Player player, User user, String path, StatsStorage.StatisticType stat) {
+        String message = ChatManager.colorMessage("Commands.Stats-Command." + path, player) + user.getStat(stat);
+        //ranks are unknown until the index is built
+        if (registry.getPlugin().getUserManager().getRankIndex().size() > 0) {
+          message += ChatManager.colorMessage("Commands.Stats-Command.Rank", player).replace("%rank%", String.valueOf(StatsStorage.getUserRank(player, stat)));
+        }
+        sender.sendMessage(message);
+      }
     });
   }
 
@@ -79,9 +79,9 @@ public class ChatEvents implements Listener {
       String message = formatChatPlaceholders(LanguageManager.getLanguageMessage("In-Game.Game-Chat-Format"), plugin.getUserManager().getUser(event.getPlayer()), eventMessage);
       if (!plugin.getConfigPreferences().getOption(ConfigPreferences.Option.DISABLE_SEPARATE_CHAT)) {
         event.setCancelled(true);
-        boolean dead = !arena.getPlayersLeft().contains(event.getPlayer());
+        boolean dead = !arena.isPlayerLeft(event.getPlayer());
         for (Player player : arena.getPlayers()) {
-          if (dead && arena.getPlayersLeft().contains(player)) {
+          if (dead && arena.isPlayerLeft(player)) {
             continue;
           }
           if (dead){
@@ -58,6 +58,7 @@ import pl.plajer.murdermystery.arena.ArenaUtils;
 import pl.plajer.murdermystery.arena.role.Role;
 import pl.plajer.murdermystery.handlers.ChatManager;
 import pl.plajer.murdermystery.handlers.items.SpecialItemManager;
+import pl.plajer.murdermystery.user.Cooldown;
 import pl.plajer.murdermystery.user.User;
 import pl.plajer.murdermystery.utils.Utils;
 import pl.plajerlair.commonsbox.minecraft.compat.XMaterial;
@@ -110,19 +111,19 @@ public class Events implements Listener {
     if (attacker.getInventory().getItemInMainHand().getType() != plugin.getConfigPreferences().getMurdererSword().getType()) {
       return;
     }
-    if (attackerUser.getCooldown("sword_shoot") > 0) {
+    if (attackerUser.getCooldown(Cooldown.SWORD_THROW) > 0) {
       return;
     }
-    attackerUser.setCooldown("sword_shoot", plugin.getConfig().getInt("Murderer-Sword-Fly-Cooldown", 5));
-    attacker.setCooldown(plugin.getConfigPreferences().getMurdererSword().getType(), 20 * (plugin.getConfig().getInt("Murderer-Sword-Attack-Cooldown", 1)));
+    attackerUser.setCooldown(Cooldown.SWORD_THROW, 20L * plugin.getGameSettings().getMurdererSwordFlyCooldown());
+    attacker.setCooldown(plugin.getConfigPreferences().getMurdererSword().getType(), 20 * plugin.getGameSettings().getMurdererSwordAttackCooldown());
     createFlyingSword(arena, attacker, attackerUser);
-    Utils.applyActionBarCooldown(attacker, plugin.getConfig().getInt("Murderer-Sword-Fly-Cooldown", 5));
+    Utils.applyActionBarCooldown(attacker, plugin.getGameSettings().getMurdererSwordFlyCooldown());
   }
 
   private void createFlyingSword(Arena arena, Player attacker, User attackerUser) {
     Location loc = attacker.getLocation();
     Vector vec = attacker.getLocation().getDirection();
-    vec.normalize().multiply(plugin.getConfig().getDouble("Murderer-Sword-Speed", 0.65));
+    vec.normalize().multiply(plugin.getGameSettings().getMurdererSwordSpeed());
     Location standStart = Utils.rotateAroundAxisY(new Vector(1.0D, 0.0D, 0.0D), loc.getYaw()).toLocation(attacker.getWorld()).add(loc);
     standStart.setYaw(loc.getYaw());
     ArmorStand stand = (ArmorStand) attacker.getWorld().spawnEntity(standStart, EntityType.ARMOR_STAND);
@@ -136,8 +137,8 @@ public class Events implements Listener {
     stand.setRemoveWhenFarAway(true);
     stand.setMarker(true);
     Location initialise = Utils.rotateAroundAxisY(new Vector(-0.8D, 1.45D, 0.0D), loc.getYaw()).toLocation(attacker.getWorld()).add(standStart).add(Utils.rotateAroundAxisY(Utils.rotateAroundAxisX(new Vector(0.0D, 0.0D, 1.0D), loc.getPitch()), loc.getYaw()));
-    int maxRange = plugin.getConfig().getInt("Murderer-Sword-Fly-Range", 20);
-    double maxHitRange = plugin.getConfig().getDouble("Murderer-Sword-Fly-Hit-Range", 0.5);
+    int maxRange = plugin.getGameSettings().getMurdererSwordFlyRange();
+    double maxHitRange = plugin.getGameSettings().getMurdererSwordFlyHitRange();
     new BukkitRunnable() {
       @Override
       public void run() {
@@ -189,12 +190,12 @@ public class Events implements Listener {
     if (arena == null) {
       return;
     }
-    if (!plugin.getConfig().getBoolean("Block-Commands-In-Game", true)) {
+    if (!plugin.getGameSettings().isBlockCommandsInGame()) {
       return;
     }
     String command = event.getMessage().substring(1);
     command = (command.indexOf(' ') >= 0 ? command.substring(0, command.indexOf(' ')) : command);
-    for (String msg : plugin.getConfig().getStringList("Whitelisted-Commands")) {
+    for (String msg : plugin.getGameSettings().getWhitelistedCommands()) {
       if (command.equalsIgnoreCase(msg)) {
         return;
       }
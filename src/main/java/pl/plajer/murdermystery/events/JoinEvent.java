@@ -63,7 +63,7 @@ public class JoinEvent implements Listener {
   @EventHandler
   public void onJoin(PlayerJoinEvent event) {
     //Load statistics first
-    plugin.getUserManager().loadStatistics(plugin.getUserManager().getUser(event.getPlayer()));
+    plugin.getUserManager().queueStatisticsLoad(plugin.getUserManager().getUser(event.getPlayer()));
     //Teleport to lobby on bungee mode
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BUNGEE_ENABLED)) {
       ArenaRegistry.getArenas().get(ArenaRegistry.getBungeeArena()).teleportToLobby(event.getPlayer());
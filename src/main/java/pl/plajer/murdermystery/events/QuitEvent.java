@@ -47,8 +47,10 @@ public class QuitEvent implements Listener {
     if (ArenaRegistry.getArena(event.getPlayer()) != null) {
       ArenaManager.leaveAttempt(event.getPlayer(), ArenaRegistry.getArena(event.getPlayer()));
     }
-    final User user = plugin.getUserManager().getUser(event.getPlayer());
-    plugin.getUserManager().removeUser(user);
+    final User user = plugin.getUserManager().getExistingUser(event.getPlayer());
+    if (user != null) {
+      plugin.getUserManager().removeUser(user);
+    }
   }
 
 }
@@ -42,7 +42,6 @@ import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.arena.Arena;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
 import pl.plajer.murdermystery.arena.ArenaState;
-import pl.plajer.murdermystery.user.User;
 
 /**
  * @author Plajer
@@ -63,7 +62,7 @@ public class SpectatorEvents implements Listener {
     if (!(e.getTarget() instanceof Player)) {
       return;
     }
-    if (plugin.getUserManager().getUser((Player) e.getTarget()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator((Player) e.getTarget())) {
       e.setCancelled(true);
       e.setTarget(null);
     }
@@ -74,7 +73,7 @@ public class SpectatorEvents implements Listener {
     if (!(e.getTarget() instanceof Player)) {
       return;
     }
-    if (plugin.getUserManager().getUser((Player) e.getTarget()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator((Player) e.getTarget())) {
       e.setCancelled(true);
       e.setTarget(null);
     }
@@ -82,49 +81,49 @@ public class SpectatorEvents implements Listener {
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onBlockPlace(BlockPlaceEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onBlockBreak(BlockBreakEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onDropItem(PlayerDropItemEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onBucketEmpty(PlayerBucketEmptyEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onInteract(PlayerInteractEntityEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onShear(PlayerShearEntityEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onConsume(PlayerItemConsumeEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
@@ -135,7 +134,7 @@ public class SpectatorEvents implements Listener {
       return;
     }
     Player player = (Player) event.getEntity();
-    if (plugin.getUserManager().getUser(player).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(player)) {
       event.setCancelled(true);
     }
   }
@@ -146,7 +145,7 @@ public class SpectatorEvents implements Listener {
       return;
     }
     Player player = (Player) event.getEntity();
-    if (!plugin.getUserManager().getUser(player).isSpectator() || ArenaRegistry.getArena(player) == null) {
+    if (!plugin.getUserManager().isSpectator(player) || ArenaRegistry.getArena(player) == null) {
       return;
     }
     if (player.getLocation().getY() < 1) {
@@ -161,7 +160,7 @@ public class SpectatorEvents implements Listener {
       return;
     }
     Player player = (Player) event.getEntity();
-    if (plugin.getUserManager().getUser(player).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(player)) {
       event.setCancelled(true);
     }
   }
@@ -172,21 +171,21 @@ public class SpectatorEvents implements Listener {
       return;
     }
     Player player = (Player) event.getDamager();
-    if (plugin.getUserManager().getUser(player).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(player)) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler(priority = EventPriority.HIGH)
   public void onPickup(PlayerPickupItemEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler
   public void onSpectate(PlayerPickupItemEvent event) {
-    if (plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
@@ -198,15 +197,14 @@ public class SpectatorEvents implements Listener {
       return;
     }
     if (arena.getArenaState() != ArenaState.IN_GAME
-      || plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+      || plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
 
   @EventHandler
   public void onInteractEntityInteract(PlayerInteractEntityEvent event) {
-    User user = plugin.getUserManager().getUser(event.getPlayer());
-    if (user.isSpectator()) {
+    if (plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
@@ -214,7 +212,7 @@ public class SpectatorEvents implements Listener {
   @EventHandler
   public void onRightClick(PlayerInteractEvent event) {
     Arena arena = ArenaRegistry.getArena(event.getPlayer());
-    if (arena != null && plugin.getUserManager().getUser(event.getPlayer()).isSpectator()) {
+    if (arena != null && plugin.getUserManager().isSpectator(event.getPlayer())) {
       event.setCancelled(true);
     }
   }
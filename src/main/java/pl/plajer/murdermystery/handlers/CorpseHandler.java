@@ -124,7 +124,7 @@ public class CorpseHandler implements Listener {
 
   @EventHandler
   public void onCorpseSpawn(CorpseSpawnEvent e) {
-    if (!plugin.getConfig().getBoolean("Override-Corpses-Spawn", true)) {
+    if (!plugin.getGameSettings().isOverrideCorpsesSpawn()) {
       return;
     }
     if (lastSpawnedCorpse == null) {
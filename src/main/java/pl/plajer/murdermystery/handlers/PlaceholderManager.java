@@ -25,6 +25,7 @@ import org.bukkit.entity.Player;
 import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.arena.Arena;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
+import pl.plajer.murdermystery.user.data.LeaderboardEntry;
 
 /**
  * @author Plajer
@@ -55,9 +56,15 @@ public class PlaceholderManager extends PlaceholderExpansion {
   }
 
   public String onPlaceholderRequest(Player player, String id) {
+    if (id.toLowerCase().startsWith("top_")) {
+      return handleTopPlaceholderRequest(id.substring("top_".length()));
+    }
     if (player == null) {
       return null;
     }
+    if (id.toLowerCase().startsWith("rank_")) {
+      return handleRankPlaceholderRequest(player, id.substring("rank_".length()));
+    }
     switch (id.toLowerCase()) {
       case "kills":
         return String.valueOf(StatsStorage.getUserStats(player, StatsStorage.StatisticType.KILLS));
@@ -76,6 +83,55 @@ public class PlaceholderManager extends PlaceholderExpansion {
     }
   }
 
+  private String handleRankPlaceholderRequest(Player player, String statName) {
+    StatsStorage.StatisticType stat;
+    try {
+      stat = StatsStorage.StatisticType.valueOf(statName.toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+    if (!stat.isPersistent()) {
+      return null;
+    }
+    return String.valueOf(StatsStorage.getUserRank(player, stat));
+  }
+
+  /**
+   * Handles top_&lt;stat&gt;_&lt;position&gt;_name and top_&lt;stat&gt;_&lt;position&gt;_value,
+   * answered from cached leaderboards only as PlaceholderAPI may request them many times per tick
+   */
+  private String handleTopPlaceholderRequest(String id) {
+    int typeSplit = id.lastIndexOf('_');
+    int positionSplit = typeSplit == -1 ? -1 : id.lastIndexOf('_', typeSplit - 1);
+    if (positionSplit == -1) {
+      return null;
+    }
+    StatsStorage.StatisticType stat;
+    int position;
+    try {
+      stat = StatsStorage.StatisticType.valueOf(id.substring(0, positionSplit).toUpperCase());
+      position = Integer.parseInt(id.substring(positionSplit + 1, typeSplit));
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+    if (!stat.isPersistent()) {
+      return null;
+    }
+    LeaderboardEntry entry = StatsStorage.getLeaderboardEntry(stat, position);
+    switch (id.substring(typeSplit + 1).toLowerCase()) {
+      case "name":
+        if (entry == null) {
+          return "Empty";
+        }
+        String name = StatsStorage.getLeaderboardName(entry);
+        return name == null ? "Unknown Player" : name;
+      case "value":
+        return entry == null ? "0" : String.valueOf(entry.getValue());
+      default:
+        return null;
+    }
+  }
+
   private String handleArenaPlaceholderRequest(String id) {
     if (!id.contains(":")) {
       return null;
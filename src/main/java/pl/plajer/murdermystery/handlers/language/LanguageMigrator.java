@@ -35,7 +35,7 @@ import pl.plajerlair.commonsbox.minecraft.migrator.MigratorUtils;
 public class LanguageMigrator {
 
   public static final int CONFIG_FILE_VERSION = 18;
-  public static final int LANGUAGE_FILE_VERSION = 2;
+  public static final int LANGUAGE_FILE_VERSION = 3;
   private Main plugin;
 
   public LanguageMigrator(Main plugin) {
@@ -210,6 +210,9 @@ public class LanguageMigrator {
           MigratorUtils.insertAfterLine(file, "Lobby-Messages:", "      Not-Enough-Space-For-Party: \"&cYour party is bigger than free places on the arena %ARENANAME%\"");
           MigratorUtils.insertAfterLine(file, "In-Game:", "  Join-As-Party-Member: \"&cYou joined %ARENANAME% because the party leader joined it!\"");
           break;
+        case 2:
+          MigratorUtils.insertAfterLine(file, "Games-Played:", "    Rank: \" &7(#%rank%)\"");
+          break;
         default:
           break;
       }
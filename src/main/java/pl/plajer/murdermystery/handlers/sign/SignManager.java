@@ -202,7 +202,7 @@ public class SignManager implements Listener {
         for (int i = 0; i < signLines.size(); i++) {
           sign.setLine(i, formatSign(signLines.get(i), arenaSign.getArena()));
         }
-        if (plugin.getConfig().getBoolean("Signs-Block-States-Enabled", true) && arenaSign.getBehind() != null) {
+        if (plugin.getGameSettings().isSignsBlockStatesEnabled() && arenaSign.getBehind() != null) {
           Block behind = arenaSign.getBehind();
           switch (arenaSign.getArena().getArenaState()) {
             case WAITING_FOR_PLAYERS:
@@ -0,0 +1,82 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user;
+
+import java.util.Map;
+
+import pl.plajer.murdermystery.api.StatsStorage;
+
+/**
+ * Immutable batch of persistent statistics loaded from the storage.
+ * <p>
+ * Storages build it on their own thread and hand it over to the main thread
+ * where it's applied to the user at once with {@link User#applyLoadedStatistics(LoadedStatistics)},
+ * so the user never exposes partially loaded statistics.
+ */
+public final class LoadedStatistics {
+
+  //indexed by statistic ordinal, non persistent statistics are always 0
+  //filled before the final field is assigned so it's safely published with the object
+  private final int[] values;
+
+  private LoadedStatistics(int[] values) {
+    this.values = values;
+  }
+
+  /**
+   * @return statistics of player without any record
+   */
+  public static LoadedStatistics empty() {
+    return new LoadedStatistics(new int[StatsStorage.StatisticType.values().length]);
+  }
+
+  /**
+   * @param stats  persistent statistics in order of values
+   * @param values loaded values, copied
+   * @return immutable batch of loaded statistics
+   */
+  public static LoadedStatistics of(StatsStorage.StatisticType[] stats, int[] values) {
+    int[] loaded = new int[StatsStorage.StatisticType.values().length];
+    for (int i = 0; i < stats.length; i++) {
+      if (stats[i].isPersistent()) {
+        loaded[stats[i].ordinal()] = values[i];
+      }
+    }
+    return new LoadedStatistics(loaded);
+  }
+
+  /**
+   * @param stats loaded values of persistent statistics, copied
+   * @return immutable batch of loaded statistics
+   */
+  public static LoadedStatistics of(Map<StatsStorage.StatisticType, Integer> stats) {
+    int[] loaded = new int[StatsStorage.StatisticType.values().length];
+    for (Map.Entry<StatsStorage.StatisticType, Integer> stat : stats.entrySet()) {
+      if (stat.getKey().isPersistent()) {
+        loaded[stat.getKey().ordinal()] = stat.getValue();
+      }
+    }
+    return new LoadedStatistics(loaded);
+  }
+
+  public int get(StatsStorage.StatisticType stat) {
+    return values[stat.ordinal()];
+  }
+
+}
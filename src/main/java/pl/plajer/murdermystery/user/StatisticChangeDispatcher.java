@@ -0,0 +1,86 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.api.events.player.MMPlayerStatisticChangeEvent;
+
+/**
+ * Queues statistic changes and calls {@link MMPlayerStatisticChangeEvent} for all of them
+ * in single task on next tick.
+ * <p>
+ * Changes of the same statistic of the same user made in one tick are merged into one event
+ * carrying the latest value. Nothing is queued while no plugin listens to the event.
+ */
+public class StatisticChangeDispatcher {
+
+  private final Main plugin;
+  //guarded by this, statistics can be changed while loading them asynchronously
+  private Map<User, Set<StatsStorage.StatisticType>> queued = new LinkedHashMap<>();
+  private boolean scheduled = false;
+
+  public StatisticChangeDispatcher(Main plugin) {
+    this.plugin = plugin;
+  }
+
+  /**
+   * Queues statistic change event of the user
+   *
+   * @param user user whose statistic changed
+   * @param stat changed statistic
+   */
+  public void queue(User user, StatsStorage.StatisticType stat) {
+    if (MMPlayerStatisticChangeEvent.getHandlerList().getRegisteredListeners().length == 0) {
+      return;
+    }
+    synchronized (this) {
+      queued.computeIfAbsent(user, key -> EnumSet.noneOf(StatsStorage.StatisticType.class)).add(stat);
+      //no tasks can be scheduled while disabling, queued changes are dropped then
+      if (scheduled || !plugin.isEnabled()) {
+        return;
+      }
+      scheduled = true;
+    }
+    Bukkit.getScheduler().runTask(plugin, this::dispatch);
+  }
+
+  private void dispatch() {
+    Map<User, Set<StatsStorage.StatisticType>> changes;
+    synchronized (this) {
+      changes = queued;
+      queued = new LinkedHashMap<>();
+      scheduled = false;
+    }
+    for (Map.Entry<User, Set<StatsStorage.StatisticType>> change : changes.entrySet()) {
+      User user = change.getKey();
+      for (StatsStorage.StatisticType stat : change.getValue()) {
+        Bukkit.getPluginManager().callEvent(new MMPlayerStatisticChangeEvent(user.getArena(), user.getPlayer(), stat, user.getStat(stat)));
+      }
+    }
+  }
+
+}
@@ -18,9 +18,9 @@
 
 package pl.plajer.murdermystery.user;
 
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -29,7 +29,6 @@ import org.bukkit.scoreboard.ScoreboardManager;
 
 import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.api.StatsStorage;
-import pl.plajer.murdermystery.api.events.player.MMPlayerStatisticChangeEvent;
 import pl.plajer.murdermystery.arena.Arena;
 import pl.plajer.murdermystery.arena.ArenaRegistry;
 
@@ -37,26 +36,31 @@ import pl.plajer.murdermystery.arena.ArenaRegistry;
  * @author Plajer
  * <p>
  * Created at 03.08.2018
+ * <p>
+ * Statistics are confined to the main thread, changes requested from other threads
+ * are moved to the main thread and loaded statistics are applied there as one batch.
  */
 public class User {
 
   private static Main plugin = JavaPlugin.getPlugin(Main.class);
-  private static long cooldownCounter = 0;
   private ScoreboardManager scoreboardManager = Bukkit.getScoreboardManager();
   private Player player;
   private boolean spectator = false;
   private boolean permanentSpectator = false;
-  private Map<StatsStorage.StatisticType, Integer> stats = new EnumMap<>(StatsStorage.StatisticType.class);
-  private Map<String, Double> cooldowns = new HashMap<>();
+  //indexed by statistic ordinal to avoid boxing on frequent reads, main thread only
+  private final int[] stats = new int[StatsStorage.StatisticType.values().length];
+  //statistics explicitly set before loaded ones were applied, indexed by statistic ordinal
+  private final boolean[] setBeforeLoad = new boolean[StatsStorage.StatisticType.values().length];
+  //expiry server tick of each cooldown, indexed by cooldown ordinal
+  private final long[] cooldowns = new long[Cooldown.values().length];
+  private CompletableFuture<Void> statsLoad;
+  //null until statistics are applied from the storage, e.g. when the load failed
+  private LoadedStatistics loadedStatistics;
 
   public User(Player player) {
     this.player = player;
   }
 
-  public static void cooldownHandlerTask() {
-    Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> cooldownCounter++, 20, 20);
-  }
-
   public Arena getArena() {
     return ArenaRegistry.getArena(player);
   }
@@ -75,6 +79,37 @@ public class User {
 
   public void setSpectator(boolean b) {
     spectator = b;
+    Arena arena = getArena();
+    if (arena != null) {
+      arena.updateSpectator(player, b);
+    }
+  }
+
+  /**
+   * @return true if statistics of the user are loaded
+   */
+  public boolean isStatsLoaded() {
+    return statsLoad != null && statsLoad.isDone();
+  }
+
+  boolean isStatsApplied() {
+    return loadedStatistics != null;
+  }
+
+  /**
+   * @return statistics as they were loaded from the storage, null if they weren't applied yet
+   */
+  @Nullable
+  public LoadedStatistics getLoadedStatistics() {
+    return loadedStatistics;
+  }
+
+  CompletableFuture<Void> getStatsLoad() {
+    return statsLoad;
+  }
+
+  void setStatsLoad(CompletableFuture<Void> statsLoad) {
+    this.statsLoad = statsLoad;
   }
 
   public void setPermanentSpectator(boolean permanentSpectator) {
@@ -82,13 +117,7 @@ public class User {
   }
 
   public int getStat(StatsStorage.StatisticType stat) {
-    if (!stats.containsKey(stat)) {
-      stats.put(stat, 0);
-      return 0;
-    } else if (stats.get(stat) == null) {
-      return 0;
-    }
-    return stats.get(stat);
+    return stats[stat.ordinal()];
   }
 
   public void removeScoreboard() {
@@ -96,34 +125,86 @@ public class User {
   }
 
   public void setStat(StatsStorage.StatisticType stat, int i) {
-    stats.put(stat, i);
-
-    //statistics manipulation events are called async when using mysql
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      MMPlayerStatisticChangeEvent playerStatisticChangeEvent = new MMPlayerStatisticChangeEvent(getArena(), player, stat, i);
-      Bukkit.getPluginManager().callEvent(playerStatisticChangeEvent);
-    });
+    if (!Bukkit.isPrimaryThread()) {
+      runOnMainThread(() -> setStat(stat, i));
+      return;
+    }
+    stats[stat.ordinal()] = i;
+    if (loadedStatistics == null) {
+      setBeforeLoad[stat.ordinal()] = true;
+    }
+    plugin.getStatisticChangeDispatcher().queue(this, stat);
   }
 
   public void addStat(StatsStorage.StatisticType stat, int i) {
-    stats.put(stat, getStat(stat) + i);
-
-    //statistics manipulation events are called async when using mysql
-    Bukkit.getScheduler().runTask(plugin, () -> {
-      MMPlayerStatisticChangeEvent playerStatisticChangeEvent = new MMPlayerStatisticChangeEvent(getArena(), player, stat, getStat(stat));
-      Bukkit.getPluginManager().callEvent(playerStatisticChangeEvent);
-    });
+    if (!Bukkit.isPrimaryThread()) {
+      //incrementing off the main thread would race with the game logic
+      runOnMainThread(() -> addStat(stat, i));
+      return;
+    }
+    stats[stat.ordinal()] += i;
+    plugin.getStatisticChangeDispatcher().queue(this, stat);
   }
 
-  public void setCooldown(String s, double seconds) {
-    cooldowns.put(s, seconds + cooldownCounter);
+  private void runOnMainThread(Runnable runnable) {
+    //no tasks can be scheduled while disabling, statistics are already saved then
+    if (plugin.isEnabled()) {
+      Bukkit.getScheduler().runTask(plugin, runnable);
+    }
   }
 
-  public double getCooldown(String s) {
-    if (!cooldowns.containsKey(s) || cooldowns.get(s) <= cooldownCounter) {
-      return 0;
+  /**
+   * Applies persistent statistics loaded from the storage, must be called from main thread.
+   * Progress made before the load arrived (e.g. game played after load timeout) is kept
+   * on top of loaded values, non persistent statistics are not touched.
+   * Contribution statistics are absolute values, they're replaced by loaded ones
+   * unless they were explicitly set before the load.
+   *
+   * @param loaded statistics loaded from the storage
+   */
+  public void applyLoadedStatistics(LoadedStatistics loaded) {
+    if (!Bukkit.isPrimaryThread()) {
+      throw new IllegalStateException("Statistics of " + player.getName() + " must be applied from main thread");
     }
-    return cooldowns.get(s) - cooldownCounter;
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (!stat.isPersistent()) {
+        continue;
+      }
+      int value = loaded.get(stat);
+      if (isContribution(stat)) {
+        if (!setBeforeLoad[stat.ordinal()]) {
+          stats[stat.ordinal()] = value;
+        }
+      } else if (stat == StatsStorage.StatisticType.HIGHEST_SCORE) {
+        stats[stat.ordinal()] = Math.max(stats[stat.ordinal()], value);
+      } else {
+        stats[stat.ordinal()] += value;
+      }
+      plugin.getStatisticChangeDispatcher().queue(this, stat);
+    }
+    loadedStatistics = loaded;
+  }
+
+  private static boolean isContribution(StatsStorage.StatisticType stat) {
+    return stat == StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE || stat == StatsStorage.StatisticType.CONTRIBUTION_MURDERER;
+  }
+
+  /**
+   * Starts the cooldown, must be called from main thread
+   *
+   * @param cooldown cooldown to start
+   * @param ticks    duration of the cooldown in server ticks
+   */
+  public void setCooldown(Cooldown cooldown, long ticks) {
+    cooldowns[cooldown.ordinal()] = plugin.getArenaTicker().getCurrentTick() + ticks;
+  }
+
+  /**
+   * @param cooldown cooldown to check
+   * @return remaining server ticks of the cooldown, 0 if it's not active
+   */
+  public long getCooldown(Cooldown cooldown) {
+    return Math.max(0, cooldowns[cooldown.ordinal()] - plugin.getArenaTicker().getCurrentTick());
   }
 
 }
@@ -18,10 +18,19 @@
 
 package pl.plajer.murdermystery.user;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
+import javax.annotation.Nullable;
+
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -29,8 +38,13 @@ import pl.plajer.murdermystery.ConfigPreferences;
 import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.arena.Arena;
+import pl.plajer.murdermystery.user.data.BinaryStats;
 import pl.plajer.murdermystery.user.data.FileStats;
+import pl.plajer.murdermystery.user.data.LeaderboardCache;
 import pl.plajer.murdermystery.user.data.MysqlManager;
+import pl.plajer.murdermystery.user.data.NameCache;
+import pl.plajer.murdermystery.user.data.RankIndex;
+import pl.plajer.murdermystery.user.data.SqliteManager;
 import pl.plajer.murdermystery.user.data.UserDatabase;
 import pl.plajer.murdermystery.utils.Debugger;
 
@@ -41,39 +55,97 @@ import pl.plajer.murdermystery.utils.Debugger;
  */
 public class UserManager {
 
+  /**
+   * Maximum time (in seconds) joins and role selection wait for statistics to load
+   */
+  public static final int STATS_LOAD_TIMEOUT = 3;
+
+  private Main plugin;
   private UserDatabase database;
-  private List<User> users = new ArrayList<>();
+  private NameCache nameCache;
+  private LeaderboardCache leaderboardCache;
+  private RankIndex rankIndex;
+  private Map<UUID, User> users = new HashMap<>();
+  private Map<User, CompletableFuture<Void>> queuedLoads = new LinkedHashMap<>();
 
   public UserManager(Main plugin) {
+    this.plugin = plugin;
     if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.DATABASE_ENABLED)) {
       database = new MysqlManager(plugin);
       Debugger.debug(Level.INFO, "MySQL Stats enabled");
+    } else if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.SQLITE_ENABLED)) {
+      database = new SqliteManager(plugin);
+      Debugger.debug(Level.INFO, "SQLite Stats enabled");
+    } else if (plugin.getConfigPreferences().getOption(ConfigPreferences.Option.BINARY_STATS_ENABLED)) {
+      try {
+        database = new BinaryStats(plugin);
+        Debugger.debug(Level.INFO, "Binary Stats enabled");
+      } catch (IOException ex) {
+        plugin.getLogger().log(Level.SEVERE, "Could not open binary stats storage, falling back to stats.yml", ex);
+        database = new FileStats(plugin);
+      }
     } else {
       database = new FileStats(plugin);
       Debugger.debug(Level.INFO, "File Stats enabled");
     }
+    nameCache = new NameCache(plugin, database);
+    leaderboardCache = new LeaderboardCache(plugin, database, nameCache);
+    rankIndex = new RankIndex(plugin, database);
     loadStatsForPlayersOnline();
   }
 
   private void loadStatsForPlayersOnline() {
+    List<User> online = new ArrayList<>();
     for (Player player : Bukkit.getServer().getOnlinePlayers()) {
-      User user = getUser(player);
-      loadStatistics(user);
+      online.add(getUser(player));
+    }
+    if (!online.isEmpty()) {
+      loadStatistics(online);
     }
   }
 
+  /**
+   * Get user of the player, registers new one if player has no user yet.
+   * Use it only for arena participants and players whose statistics are loaded.
+   *
+   * @param player player to get user of
+   * @return user of the player
+   * @see #getExistingUser(Player)
+   */
   public User getUser(Player player) {
-    for (User user : users) {
-      if (user.getPlayer().equals(player)) {
-        return user;
-      }
+    User user = users.get(player.getUniqueId());
+    if (user != null) {
+      return user;
     }
     Debugger.debug(Level.INFO, "Registering new user {0} ({1})", player.getUniqueId(), player.getName());
-    User user = new User(player);
-    users.add(user);
+    user = new User(player);
+    users.put(player.getUniqueId(), user);
+    nameCache.put(player.getUniqueId(), player.getName());
     return user;
   }
 
+  /**
+   * Get user of the player without registering new one.
+   *
+   * @param player player to get user of
+   * @return user of the player or null if not registered
+   */
+  @Nullable
+  public User getExistingUser(Player player) {
+    return users.get(player.getUniqueId());
+  }
+
+  /**
+   * Checks whether player is a spectator without registering new user for him.
+   *
+   * @param player player to check
+   * @return true if player has registered user which is spectating
+   */
+  public boolean isSpectator(Player player) {
+    User user = users.get(player.getUniqueId());
+    return user != null && user.isSpectator();
+  }
+
   public List<User> getUsers(Arena arena) {
     List<User> users = new ArrayList<>();
     for (Player player : arena.getPlayers()) {
@@ -86,15 +158,151 @@ public class UserManager {
     if (!stat.isPersistent()) {
       return;
     }
+    if (deferUntilLoaded(user, () -> saveStatistic(user, stat))) {
+      return;
+    }
     //apply before save
     fixContirbutionStatistics(user);
     database.saveStatistic(user, stat);
+    leaderboardCache.update(user);
+    rankIndex.update(user);
   }
 
-  public void loadStatistics(User user) {
-    database.loadStatistics(user);
-    //apply after load to override
-    fixContirbutionStatistics(user);
+  /**
+   * Loads statistics of the user asynchronously (if storage supports it).
+   * Failed load leaves default values.
+   *
+   * @param user user to load statistics for
+   * @return future completed on the main thread once statistics are applied
+   */
+  public CompletableFuture<Void> loadStatistics(User user) {
+    CompletableFuture<Void> load = database.loadStatistics(user).handle((result, ex) -> {
+      //apply after load to override
+      fixContirbutionStatistics(user);
+      return null;
+    });
+    user.setStatsLoad(load);
+    return load;
+  }
+
+  /**
+   * Loads statistics of many users with single bulk load.
+   *
+   * @param users users to load statistics for
+   * @return future completed on the main thread once statistics of all users are applied
+   * @see UserDatabase#loadStatistics(Collection)
+   */
+  public CompletableFuture<Void> loadStatistics(Collection<User> users) {
+    List<User> batch = new ArrayList<>(users);
+    CompletableFuture<Void> load = database.loadStatistics(batch).handle((result, ex) -> {
+      batch.forEach(this::fixContirbutionStatistics);
+      return null;
+    });
+    for (User user : batch) {
+      user.setStatsLoad(load);
+    }
+    return load;
+  }
+
+  /**
+   * Loads statistics of players that were never requested to load, in single bulk load.
+   *
+   * @param players players to preload
+   */
+  public void preloadStatistics(Collection<Player> players) {
+    List<User> missing = new ArrayList<>();
+    for (Player player : players) {
+      User user = getUser(player);
+      if (user.getStatsLoad() == null) {
+        missing.add(user);
+      }
+    }
+    if (!missing.isEmpty()) {
+      loadStatistics(missing);
+    }
+  }
+
+  /**
+   * Queues statistics load of the user, all loads queued in the same tick
+   * (e.g. whole lobby sent by the proxy) are done with single bulk load on the next tick.
+   *
+   * @param user user to load statistics for
+   */
+  public void queueStatisticsLoad(User user) {
+    if (queuedLoads.isEmpty()) {
+      Bukkit.getScheduler().runTask(plugin, this::loadQueuedStatistics);
+    }
+    CompletableFuture<Void> queued = new CompletableFuture<>();
+    queuedLoads.put(user, queued);
+    user.setStatsLoad(queued);
+  }
+
+  private void loadQueuedStatistics() {
+    Map<User, CompletableFuture<Void>> batch = queuedLoads;
+    queuedLoads = new LinkedHashMap<>();
+    if (batch.isEmpty()) {
+      return;
+    }
+    CompletableFuture<Void> load = database.loadStatistics(batch.keySet()).handle((result, ex) -> {
+      batch.keySet().forEach(this::fixContirbutionStatistics);
+      return null;
+    });
+    load.thenRun(() -> batch.values().forEach(queued -> queued.complete(null)));
+  }
+
+  /**
+   * Waits for statistics of the user without blocking the main thread.
+   *
+   * @param user user to wait for
+   * @return future completed on the main thread when statistics are loaded
+   * or after {@link #STATS_LOAD_TIMEOUT} seconds, whichever comes first
+   */
+  public CompletableFuture<Void> awaitStatistics(User user) {
+    CompletableFuture<Void> load = user.getStatsLoad();
+    if (load == null) {
+      load = loadStatistics(user);
+    }
+    if (load.isDone()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    load.whenComplete((v, ex) -> result.complete(null));
+    Bukkit.getScheduler().runTaskLater(plugin, () -> {
+      if (result.complete(null)) {
+        Debugger.debug(Level.WARNING, "Statistics of {0} weren't loaded in {1} seconds, using defaults", user.getPlayer().getName(), STATS_LOAD_TIMEOUT);
+      }
+    }, STATS_LOAD_TIMEOUT * 20L);
+    return result;
+  }
+
+  /**
+   * Storages write absolute values, so saving statistics that aren't loaded yet
+   * (e.g. game played after {@link #STATS_LOAD_TIMEOUT}) would overwrite stored ones with defaults.
+   * Such saves are repeated once the load completes and its values are added to the progress.
+   *
+   * @param user user to save statistics of
+   * @param save save to repeat after the load
+   * @return true if save can't be done now
+   */
+  private boolean deferUntilLoaded(User user, Runnable save) {
+    CompletableFuture<Void> load = user.getStatsLoad();
+    if (load == null) {
+      if (!plugin.isEnabled()) {
+        //nothing can be loaded anymore, stored statistics are kept untouched
+        return true;
+      }
+      load = loadStatistics(user);
+    }
+    if (!load.isDone()) {
+      Debugger.debug(Level.INFO, "Statistics of {0} aren't loaded yet, saving them after the load", user.getPlayer().getName());
+      load.thenRun(save);
+      return true;
+    }
+    if (!user.isStatsApplied()) {
+      Debugger.debug(Level.WARNING, "Statistics of {0} failed to load, not saving them to keep stored ones", user.getPlayer().getName());
+      return true;
+    }
+    return false;
   }
 
   private void fixContirbutionStatistics(User user) {
@@ -107,11 +315,30 @@ public class UserManager {
   }
 
   public void saveAllStatistic(User user) {
+    if (deferUntilLoaded(user, () -> saveAllStatistic(user))) {
+      return;
+    }
     database.saveAllStatistic(user);
+    if (plugin.isEnabled()) {
+      leaderboardCache.update(user);
+      rankIndex.update(user);
+    }
   }
 
   public void removeUser(User user) {
-    users.remove(user);
+    users.remove(user.getPlayer().getUniqueId(), user);
+  }
+
+  public NameCache getNameCache() {
+    return nameCache;
+  }
+
+  public LeaderboardCache getLeaderboardCache() {
+    return leaderboardCache;
+  }
+
+  public RankIndex getRankIndex() {
+    return rankIndex;
   }
 
   public UserDatabase getDatabase() {
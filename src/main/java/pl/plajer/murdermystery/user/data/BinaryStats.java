@@ -0,0 +1,245 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
+import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
+import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
+
+/**
+ * Statistics stored in sharded binary files with fixed-width records.
+ * <p>
+ * Players are spread across {@link #SHARDS} memory mapped shards by their UUID,
+ * each shard keeps on-disk hash index so loading player statistics reads only that player record
+ * and memory usage doesn't grow with the amount of stored players.
+ *
+ * @see BinaryStatsShard
+ */
+public class BinaryStats implements UserDatabase {
+
+  public static final int SHARDS = 16;
+  /**
+   * Interval (in ticks) of flushing mapped changes to the disk
+   */
+  public static final long FORCE_INTERVAL = 20 * 30;
+
+  private Main plugin;
+  private final StatsStorage.StatisticType[] persistentStats;
+  private final int[] columnOf = new int[StatsStorage.StatisticType.values().length];
+  private final BinaryStatsShard[] shards = new BinaryStatsShard[SHARDS];
+  private BukkitTask forceTask;
+
+  public BinaryStats(Main plugin) throws IOException {
+    this.plugin = plugin;
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    List<String> columns = new ArrayList<>();
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      columnOf[stat.ordinal()] = -1;
+      if (stat.isPersistent()) {
+        columnOf[stat.ordinal()] = persistent.size();
+        persistent.add(stat);
+        columns.add(stat.getName());
+      }
+    }
+    persistentStats = persistent.toArray(new StatsStorage.StatisticType[0]);
+    File folder = new File(plugin.getDataFolder(), "stats");
+    if (!folder.exists() && !folder.mkdirs()) {
+      throw new IOException("Cannot create stats folder");
+    }
+    try {
+      for (int i = 0; i < SHARDS; i++) {
+        shards[i] = new BinaryStatsShard(new File(folder, "shard-" + i + ".dat"), new File(folder, "shard-" + i + ".idx"), columns.toArray(new String[0]));
+      }
+      int stored = 0;
+      for (BinaryStatsShard shard : shards) {
+        stored += shard.size();
+      }
+      if (stored == 0) {
+        migrateFromYaml();
+      }
+    } catch (IOException | RuntimeException ex) {
+      //we fall back to another storage, don't keep already opened shard files locked
+      for (BinaryStatsShard shard : shards) {
+        if (shard == null) {
+          continue;
+        }
+        try {
+          shard.close();
+        } catch (IOException closeEx) {
+          ex.addSuppressed(closeEx);
+        }
+      }
+      throw ex;
+    }
+    forceTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::force, FORCE_INTERVAL, FORCE_INTERVAL);
+  }
+
+  /**
+   * One-shot migration of stats.yml into binary shards, done while shards are still empty.
+   * Original stats.yml is left untouched.
+   */
+  private void migrateFromYaml() throws IOException {
+    if (!new File(plugin.getDataFolder(), "stats.yml").exists()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    FileConfiguration config = ConfigUtils.getConfig(plugin, "stats");
+    int migrated = 0;
+    for (String key : config.getKeys(false)) {
+      UUID uuid;
+      try {
+        uuid = UUID.fromString(key);
+      } catch (IllegalArgumentException ex) {
+        //data-version and other non player keys
+        continue;
+      }
+      int[] values = new int[persistentStats.length];
+      for (int i = 0; i < persistentStats.length; i++) {
+        values[i] = config.getInt(key + "." + persistentStats[i].getName(), 0);
+      }
+      getShard(uuid).write(uuid, values);
+      migrated++;
+    }
+    force();
+    plugin.getLogger().log(Level.INFO, "Migrated statistics of " + migrated + " players from stats.yml to binary storage, took " + (System.currentTimeMillis() - start) + "ms");
+  }
+
+  private BinaryStatsShard getShard(UUID uuid) {
+    return shards[Math.floorMod(uuid.hashCode(), SHARDS)];
+  }
+
+  @Override
+  public void saveStatistic(User user, StatsStorage.StatisticType stat) {
+    int column = columnOf[stat.ordinal()];
+    if (column == -1) {
+      return;
+    }
+    UUID uuid = user.getPlayer().getUniqueId();
+    try {
+      getShard(uuid).write(uuid, column, user.getStat(stat));
+    } catch (IOException ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not save statistic " + stat.getName() + " of " + uuid, ex);
+    }
+  }
+
+  @Override
+  public void saveAllStatistic(User user) {
+    int[] values = new int[persistentStats.length];
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (!stat.isPersistent()) {
+        user.setStat(stat, 0);
+        continue;
+      }
+      values[columnOf[stat.ordinal()]] = user.getStat(stat);
+    }
+    UUID uuid = user.getPlayer().getUniqueId();
+    try {
+      getShard(uuid).write(uuid, values);
+    } catch (IOException ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not save statistics of " + uuid, ex);
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> loadStatistics(User user) {
+    int[] values = getShard(user.getPlayer().getUniqueId()).read(user.getPlayer().getUniqueId());
+    user.applyLoadedStatistics(values == null ? LoadedStatistics.empty() : LoadedStatistics.of(persistentStats, values));
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Reads statistic of every stored player, unsorted.
+   *
+   * @param stat persistent statistic to read
+   * @return map of UUID keys and statistic values
+   */
+  public Map<UUID, Integer> getStats(StatsStorage.StatisticType stat) {
+    Map<UUID, Integer> stats = new HashMap<>();
+    int column = columnOf[stat.ordinal()];
+    if (column == -1) {
+      return stats;
+    }
+    for (BinaryStatsShard shard : shards) {
+      shard.forEach((uuid, values) -> stats.put(uuid, values[column]));
+    }
+    return stats;
+  }
+
+  @Override
+  public List<LeaderboardEntry> getTopStatistics(StatsStorage.StatisticType stat, int limit) {
+    PriorityQueue<LeaderboardEntry> heap = LeaderboardCache.createHeap(limit);
+    int column = columnOf[stat.ordinal()];
+    if (column != -1) {
+      for (BinaryStatsShard shard : shards) {
+        shard.forEach((uuid, values) -> LeaderboardCache.offer(heap, new LeaderboardEntry(uuid, values[column]), limit));
+      }
+    }
+    return LeaderboardCache.toSortedList(heap);
+  }
+
+  @Override
+  public void forEachStatistics(BiConsumer<UUID, int[]> consumer) {
+    for (BinaryStatsShard shard : shards) {
+      shard.forEach(consumer);
+    }
+  }
+
+  private void force() {
+    long start = System.currentTimeMillis();
+    for (BinaryStatsShard shard : shards) {
+      shard.force();
+    }
+    Debugger.performance("BinaryStats", "Flushed binary stats shards took {0}ms", System.currentTimeMillis() - start);
+  }
+
+  @Override
+  public void shutdown() {
+    if (forceTask != null) {
+      forceTask.cancel();
+      forceTask = null;
+    }
+    for (BinaryStatsShard shard : shards) {
+      try {
+        shard.close();
+      } catch (IOException ex) {
+        plugin.getLogger().log(Level.WARNING, "Could not close binary stats shard", ex);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,348 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Single shard of {@link BinaryStats}.
+ * <p>
+ * Data file holds header with column names followed by fixed-width records
+ * (16 bytes of UUID + 4 bytes per column), index file is open addressing hash table
+ * of UUID to record slot. Both files are memory mapped so reading single record
+ * doesn't require loading anything else into memory.
+ */
+class BinaryStatsShard {
+
+  private static final int DATA_MAGIC = 0x4d4d5344;
+  private static final int INDEX_MAGIC = 0x4d4d5349;
+  private static final int VERSION = 1;
+  //magic, version, records, column count
+  private static final int DATA_HEADER = 16;
+  //magic, capacity, size
+  private static final int INDEX_HEADER = 12;
+  //most significant bits, least significant bits, slot + 1 (0 means empty)
+  private static final int INDEX_ENTRY = 20;
+  private static final int INITIAL_RECORDS = 256;
+
+  private final File dataFile;
+  private final File indexFile;
+  private final String[] columns;
+  private final int recordSize;
+  private final byte[] header;
+  private FileChannel dataChannel;
+  private MappedByteBuffer dataMap;
+  private int records;
+  private int recordCapacity;
+  private FileChannel indexChannel;
+  private MappedByteBuffer indexMap;
+  private int indexCapacity;
+
+  BinaryStatsShard(File dataFile, File indexFile, String[] columns) throws IOException {
+    this.dataFile = dataFile;
+    this.indexFile = indexFile;
+    this.columns = columns.clone();
+    this.recordSize = 16 + 4 * columns.length;
+    this.header = createHeader(columns);
+    openData();
+    try {
+      openIndex();
+    } catch (IOException | RuntimeException ex) {
+      dataChannel.close();
+      throw ex;
+    }
+  }
+
+  private static byte[] createHeader(String[] columns) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(DATA_MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(0);
+    out.writeInt(columns.length);
+    for (String column : columns) {
+      out.writeUTF(column);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private void openData() throws IOException {
+    if (dataFile.length() > 0) {
+      Map<UUID, int[]> converted = null;
+      try (RandomAccessFile file = new RandomAccessFile(dataFile, "r")) {
+        if (file.readInt() != DATA_MAGIC || file.readInt() != VERSION) {
+          throw new IOException("Unknown format of stats file " + dataFile.getName());
+        }
+        int storedRecords = file.readInt();
+        String[] storedColumns = new String[file.readInt()];
+        for (int i = 0; i < storedColumns.length; i++) {
+          storedColumns[i] = file.readUTF();
+        }
+        if (!Arrays.equals(storedColumns, columns)) {
+          //statistic types changed, records have different width so shard must be rewritten
+          converted = readRecords(file, storedColumns, storedRecords);
+        } else {
+          records = storedRecords;
+        }
+      }
+      if (converted != null) {
+        rewriteData(converted);
+        records = converted.size();
+      }
+    }
+    recordCapacity = Math.max(INITIAL_RECORDS, Integer.highestOneBit(Math.max(1, records)) * 2);
+    dataChannel = new RandomAccessFile(dataFile, "rw").getChannel();
+    mapData();
+    dataMap.position(0);
+    dataMap.put(header);
+    dataMap.putInt(8, records);
+  }
+
+  /**
+   * Writes converted records to temporary file which then atomically replaces the data file,
+   * so crash during the conversion leaves either old or new shard, never partial one.
+   */
+  private void rewriteData(Map<UUID, int[]> converted) throws IOException {
+    File temp = new File(dataFile.getPath() + ".tmp");
+    byte[] convertedHeader = header.clone();
+    ByteBuffer.wrap(convertedHeader).putInt(8, converted.size());
+    try (FileOutputStream stream = new FileOutputStream(temp)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+      out.write(convertedHeader);
+      for (Map.Entry<UUID, int[]> entry : converted.entrySet()) {
+        out.writeLong(entry.getKey().getMostSignificantBits());
+        out.writeLong(entry.getKey().getLeastSignificantBits());
+        for (int value : entry.getValue()) {
+          out.writeInt(value);
+        }
+      }
+      out.flush();
+      stream.getChannel().force(true);
+    }
+    //index of the old layout is dropped first, it's rebuilt from the data file when missing
+    if (indexFile.exists() && !indexFile.delete()) {
+      throw new IOException("Cannot rewrite stats index " + indexFile.getName());
+    }
+    Files.move(temp.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Map<UUID, int[]> readRecords(RandomAccessFile file, String[] storedColumns, int storedRecords) throws IOException {
+    int[] mapping = new int[storedColumns.length];
+    for (int i = 0; i < storedColumns.length; i++) {
+      mapping[i] = Arrays.asList(columns).indexOf(storedColumns[i]);
+    }
+    Map<UUID, int[]> result = new LinkedHashMap<>();
+    for (int record = 0; record < storedRecords; record++) {
+      UUID uuid = new UUID(file.readLong(), file.readLong());
+      int[] values = new int[columns.length];
+      for (int column : mapping) {
+        int value = file.readInt();
+        if (column != -1) {
+          values[column] = value;
+        }
+      }
+      result.put(uuid, values);
+    }
+    return result;
+  }
+
+  private void mapData() throws IOException {
+    //mapping past the end of file extends it
+    dataMap = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, header.length + (long) recordCapacity * recordSize);
+  }
+
+  private void openIndex() throws IOException {
+    boolean valid = false;
+    if (indexFile.length() >= INDEX_HEADER) {
+      try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+        valid = file.readInt() == INDEX_MAGIC;
+        int capacity = file.readInt();
+        valid = valid && file.readInt() == records && Integer.bitCount(capacity) == 1
+          && file.length() >= INDEX_HEADER + (long) capacity * INDEX_ENTRY;
+        indexCapacity = capacity;
+      }
+    }
+    if (!valid) {
+      //missing or not in sync with data file (e.g. crash between writes)
+      rebuildIndex(Math.max(INITIAL_RECORDS * 2, Integer.highestOneBit(Math.max(1, records)) * 4));
+      return;
+    }
+    indexChannel = new RandomAccessFile(indexFile, "rw").getChannel();
+    indexMap = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) indexCapacity * INDEX_ENTRY);
+  }
+
+  private void rebuildIndex(int capacity) throws IOException {
+    if (indexChannel != null) {
+      indexChannel.close();
+    }
+    indexCapacity = capacity;
+    RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+    file.setLength(0);
+    indexChannel = file.getChannel();
+    indexMap = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) capacity * INDEX_ENTRY);
+    indexMap.putInt(0, INDEX_MAGIC);
+    indexMap.putInt(4, capacity);
+    for (int slot = 0; slot < records; slot++) {
+      int offset = recordOffset(slot);
+      insertIndex(dataMap.getLong(offset), dataMap.getLong(offset + 8), slot);
+    }
+    indexMap.putInt(8, records);
+  }
+
+  private int recordOffset(int slot) {
+    return header.length + slot * recordSize;
+  }
+
+  private int bucket(long most, long least) {
+    long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+    return (int) (hash >>> 32) & (indexCapacity - 1);
+  }
+
+  private void insertIndex(long most, long least, int slot) {
+    int bucket = bucket(most, least);
+    while (true) {
+      int offset = INDEX_HEADER + bucket * INDEX_ENTRY;
+      if (indexMap.getInt(offset + 16) == 0) {
+        indexMap.putLong(offset, most);
+        indexMap.putLong(offset + 8, least);
+        indexMap.putInt(offset + 16, slot + 1);
+        return;
+      }
+      bucket = (bucket + 1) & (indexCapacity - 1);
+    }
+  }
+
+  private int findSlot(UUID uuid) {
+    long most = uuid.getMostSignificantBits();
+    long least = uuid.getLeastSignificantBits();
+    int bucket = bucket(most, least);
+    while (true) {
+      int offset = INDEX_HEADER + bucket * INDEX_ENTRY;
+      int slot = indexMap.getInt(offset + 16);
+      if (slot == 0) {
+        return -1;
+      }
+      if (indexMap.getLong(offset) == most && indexMap.getLong(offset + 8) == least) {
+        return slot - 1;
+      }
+      bucket = (bucket + 1) & (indexCapacity - 1);
+    }
+  }
+
+  private int getOrCreateSlot(UUID uuid) throws IOException {
+    int slot = findSlot(uuid);
+    if (slot != -1) {
+      return slot;
+    }
+    if (records == recordCapacity) {
+      recordCapacity *= 2;
+      mapData();
+    }
+    if ((records + 1) * 4L > indexCapacity * 3L) {
+      rebuildIndex(indexCapacity * 2);
+    }
+    slot = records;
+    int offset = recordOffset(slot);
+    dataMap.putLong(offset, uuid.getMostSignificantBits());
+    dataMap.putLong(offset + 8, uuid.getLeastSignificantBits());
+    for (int i = 0; i < columns.length; i++) {
+      dataMap.putInt(offset + 16 + i * 4, 0);
+    }
+    records++;
+    dataMap.putInt(8, records);
+    insertIndex(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slot);
+    indexMap.putInt(8, records);
+    return slot;
+  }
+
+  /**
+   * @param uuid uuid of the player
+   * @return values of all columns or null if player has no record
+   */
+  synchronized int[] read(UUID uuid) {
+    int slot = findSlot(uuid);
+    if (slot == -1) {
+      return null;
+    }
+    int offset = recordOffset(slot) + 16;
+    int[] values = new int[columns.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = dataMap.getInt(offset + i * 4);
+    }
+    return values;
+  }
+
+  synchronized void write(UUID uuid, int column, int value) throws IOException {
+    dataMap.putInt(recordOffset(getOrCreateSlot(uuid)) + 16 + column * 4, value);
+  }
+
+  synchronized void write(UUID uuid, int[] values) throws IOException {
+    int offset = recordOffset(getOrCreateSlot(uuid)) + 16;
+    for (int i = 0; i < values.length; i++) {
+      dataMap.putInt(offset + i * 4, values[i]);
+    }
+  }
+
+  synchronized void forEach(BiConsumer<UUID, int[]> consumer) {
+    for (int slot = 0; slot < records; slot++) {
+      int offset = recordOffset(slot);
+      int[] values = new int[columns.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = dataMap.getInt(offset + 16 + i * 4);
+      }
+      consumer.accept(new UUID(dataMap.getLong(offset), dataMap.getLong(offset + 8)), values);
+    }
+  }
+
+  synchronized int size() {
+    return records;
+  }
+
+  /**
+   * Flushes mapped changes to the disk.
+   */
+  synchronized void force() {
+    dataMap.force();
+    indexMap.force();
+  }
+
+  synchronized void close() throws IOException {
+    force();
+    dataChannel.close();
+    indexChannel.close();
+  }
+
+}
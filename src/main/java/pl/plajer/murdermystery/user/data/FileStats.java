@@ -18,32 +18,94 @@
 
 package pl.plajer.murdermystery.user.data;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
 
 import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
 import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
 import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
 
 /**
  * @author Plajer
  * <p>
  * Created at 03.08.2018
+ * <p>
+ * Statistics are kept in memory and changed rows are written to stats.yml
+ * by asynchronous task every {@link #SAVE_INTERVAL} ticks, file is written to temporary file
+ * and atomically moved over the old one so it's never left half written.
  */
 public class FileStats implements UserDatabase {
 
+  /**
+   * Interval (in ticks) of asynchronous stats.yml saves
+   */
+  public static final long SAVE_INTERVAL = 20 * 10;
+
   private Main plugin;
-  private FileConfiguration config;
+  private final File file;
+  //owned by the writer, guarded by itself
+  private final FileConfiguration config;
+  private final StatsStorage.StatisticType[] persistentStats;
+  //written on the main thread only, rows are replaced instead of modified so leaderboards can read it async
+  private final Map<UUID, int[]> stats = new ConcurrentHashMap<>();
+  //guarded by this
+  private Map<UUID, int[]> dirty = new HashMap<>();
+  private BukkitTask saveTask;
 
   public FileStats(Main plugin) {
     this.plugin = plugin;
+    file = new File(plugin.getDataFolder(), "stats.yml");
     config = ConfigUtils.getConfig(plugin, "stats");
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (stat.isPersistent()) {
+        persistent.add(stat);
+      }
+    }
+    persistentStats = persistent.toArray(new StatsStorage.StatisticType[0]);
+    for (String key : config.getKeys(false)) {
+      UUID uuid;
+      try {
+        uuid = UUID.fromString(key);
+      } catch (IllegalArgumentException ex) {
+        //data-version and other non player keys
+        continue;
+      }
+      int[] values = new int[persistentStats.length];
+      for (int i = 0; i < persistentStats.length; i++) {
+        values[i] = config.getInt(key + "." + persistentStats[i].getName(), 0);
+      }
+      stats.put(uuid, values);
+    }
+    saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::save, SAVE_INTERVAL, SAVE_INTERVAL);
   }
 
   @Override
   public void saveStatistic(User user, StatsStorage.StatisticType stat) {
-    config.set(user.getPlayer().getUniqueId().toString() + "." + stat.getName(), user.getStat(stat));
-    ConfigUtils.saveConfig(plugin, config, "stats");
+    markDirty(user);
   }
 
   @Override
@@ -52,16 +114,96 @@ public class FileStats implements UserDatabase {
       if (!stat.isPersistent()) {
         user.setStat(stat, 0);
       }
-      config.set(user.getPlayer().getUniqueId().toString() + "." + stat.getName(), user.getStat(stat));
     }
-    ConfigUtils.saveConfig(plugin, config, "stats");
+    markDirty(user);
+  }
+
+  private void markDirty(User user) {
+    int[] values = new int[persistentStats.length];
+    for (int i = 0; i < persistentStats.length; i++) {
+      values[i] = user.getStat(persistentStats[i]);
+    }
+    UUID uuid = user.getPlayer().getUniqueId();
+    stats.put(uuid, values);
+    synchronized (this) {
+      dirty.put(uuid, values.clone());
+    }
   }
 
   @Override
-  public void loadStatistics(User user) {
-    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
-      user.setStat(stat, config.getInt(user.getPlayer().getUniqueId().toString() + "." + stat.getName(), 0));
+  public CompletableFuture<Void> loadStatistics(User user) {
+    int[] values = stats.get(user.getPlayer().getUniqueId());
+    user.applyLoadedStatistics(values == null ? LoadedStatistics.empty() : LoadedStatistics.of(persistentStats, values));
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public List<LeaderboardEntry> getTopStatistics(StatsStorage.StatisticType stat, int limit) {
+    PriorityQueue<LeaderboardEntry> heap = LeaderboardCache.createHeap(limit);
+    int column = Arrays.asList(persistentStats).indexOf(stat);
+    if (column != -1) {
+      for (Map.Entry<UUID, int[]> row : stats.entrySet()) {
+        LeaderboardCache.offer(heap, new LeaderboardEntry(row.getKey(), row.getValue()[column]), limit);
+      }
+    }
+    return LeaderboardCache.toSortedList(heap);
+  }
+
+  @Override
+  public void forEachStatistics(BiConsumer<UUID, int[]> consumer) {
+    for (Map.Entry<UUID, int[]> row : stats.entrySet()) {
+      consumer.accept(row.getKey(), row.getValue().clone());
+    }
+  }
+
+  /**
+   * Applies changed rows and writes snapshot of stats.yml, does nothing if nothing changed.
+   */
+  private void save() {
+    synchronized (config) {
+      Map<UUID, int[]> rows;
+      synchronized (this) {
+        if (dirty.isEmpty()) {
+          return;
+        }
+        rows = dirty;
+        dirty = new HashMap<>();
+      }
+      long start = System.currentTimeMillis();
+      for (Map.Entry<UUID, int[]> row : rows.entrySet()) {
+        for (int i = 0; i < persistentStats.length; i++) {
+          config.set(row.getKey().toString() + "." + persistentStats[i].getName(), row.getValue()[i]);
+        }
+      }
+      Path target = file.toPath();
+      Path temp = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+      try {
+        Files.write(temp, config.saveToString().getBytes(StandardCharsets.UTF_8));
+        try {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Debugger.debug(Level.INFO, "Saved stats.yml with {0} changed users took {1}ms", rows.size(), System.currentTimeMillis() - start);
+      } catch (IOException ex) {
+        plugin.getLogger().log(Level.WARNING, "Could not save stats.yml, retrying on next save", ex);
+        synchronized (this) {
+          //rows are already applied to the config, they're only needed to trigger next save
+          for (Map.Entry<UUID, int[]> row : rows.entrySet()) {
+            dirty.putIfAbsent(row.getKey(), row.getValue());
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    if (saveTask != null) {
+      saveTask.cancel();
+      saveTask = null;
     }
+    save();
   }
 
 }
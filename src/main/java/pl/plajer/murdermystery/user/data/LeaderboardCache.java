@@ -0,0 +1,181 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * Bounded top {@link #TOP_SIZE} leaderboard of every persistent statistic.
+ * <p>
+ * Leaderboards are fetched from the storage asynchronously every {@link #REFRESH_INTERVAL} ticks
+ * and patched in between whenever statistics of local players are saved.
+ * Each leaderboard is immutable sorted list replaced as a whole, so reading it is plain memory access.
+ * Names of listed players are refreshed in {@link NameCache} together with the leaderboards.
+ */
+public class LeaderboardCache {
+
+  public static final int TOP_SIZE = 100;
+  /**
+   * Interval (in ticks) of full leaderboards refresh
+   */
+  public static final long REFRESH_INTERVAL = 20 * 60 * 5;
+  static final Comparator<LeaderboardEntry> DESCENDING = Comparator.comparingInt(LeaderboardEntry::getValue).reversed();
+
+  private final Main plugin;
+  private final UserDatabase database;
+  private final NameCache nameCache;
+  //read from any thread, replaced only on the main thread
+  private final Map<StatsStorage.StatisticType, List<LeaderboardEntry>> leaderboards = new ConcurrentHashMap<>();
+
+  public LeaderboardCache(Main plugin, UserDatabase database, NameCache nameCache) {
+    this.plugin = plugin;
+    this.database = database;
+    this.nameCache = nameCache;
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (stat.isPersistent()) {
+        leaderboards.put(stat, Collections.emptyList());
+      }
+    }
+    Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::refresh, 20, REFRESH_INTERVAL);
+  }
+
+  /**
+   * Bounded top-K selection helper for storages that have to scan all their records.
+   *
+   * @param limit maximum amount of entries to keep
+   * @return min-heap which keeps only the highest entries when used with {@link #offer(PriorityQueue, LeaderboardEntry, int)}
+   */
+  static PriorityQueue<LeaderboardEntry> createHeap(int limit) {
+    return new PriorityQueue<>(limit + 1, Comparator.comparingInt(LeaderboardEntry::getValue));
+  }
+
+  static void offer(PriorityQueue<LeaderboardEntry> heap, LeaderboardEntry entry, int limit) {
+    if (heap.size() < limit) {
+      heap.add(entry);
+    } else if (heap.peek().getValue() < entry.getValue()) {
+      heap.poll();
+      heap.add(entry);
+    }
+  }
+
+  static List<LeaderboardEntry> toSortedList(PriorityQueue<LeaderboardEntry> heap) {
+    List<LeaderboardEntry> list = new ArrayList<>(heap);
+    list.sort(DESCENDING);
+    return list;
+  }
+
+  private void refresh() {
+    long start = System.currentTimeMillis();
+    Map<StatsStorage.StatisticType, List<LeaderboardEntry>> fetched = new EnumMap<>(StatsStorage.StatisticType.class);
+    for (StatsStorage.StatisticType stat : leaderboards.keySet()) {
+      try {
+        fetched.put(stat, Collections.unmodifiableList(new ArrayList<>(database.getTopStatistics(stat, TOP_SIZE))));
+      } catch (Exception ex) {
+        plugin.getLogger().log(Level.WARNING, "Could not refresh " + stat.getName() + " leaderboard", ex);
+      }
+    }
+    Set<UUID> listed = new HashSet<>();
+    for (List<LeaderboardEntry> leaderboard : fetched.values()) {
+      for (LeaderboardEntry entry : leaderboard) {
+        listed.add(entry.getUuid());
+      }
+    }
+    nameCache.refresh(listed);
+    Debugger.debug(Level.INFO, "Leaderboards refreshed took {0}ms", System.currentTimeMillis() - start);
+    if (!plugin.isEnabled()) {
+      return;
+    }
+    Bukkit.getScheduler().runTask(plugin, () -> {
+      leaderboards.putAll(fetched);
+      //storage might not contain changes of online players yet
+      for (Player player : Bukkit.getOnlinePlayers()) {
+        User user = plugin.getUserManager().getExistingUser(player);
+        if (user != null && user.isStatsLoaded()) {
+          update(user);
+        }
+      }
+    });
+  }
+
+  /**
+   * Patches leaderboards with current statistics of the user, must be called from main thread.
+   *
+   * @param user user whose statistics were saved
+   */
+  public void update(User user) {
+    for (Map.Entry<StatsStorage.StatisticType, List<LeaderboardEntry>> leaderboard : leaderboards.entrySet()) {
+      List<LeaderboardEntry> current = leaderboard.getValue();
+      int value = user.getStat(leaderboard.getKey());
+      int index = -1;
+      for (int i = 0; i < current.size(); i++) {
+        if (current.get(i).getUuid().equals(user.getPlayer().getUniqueId())) {
+          index = i;
+          break;
+        }
+      }
+      if (index != -1 && current.get(index).getValue() == value) {
+        continue;
+      }
+      if (index == -1 && current.size() >= TOP_SIZE && current.get(current.size() - 1).getValue() >= value) {
+        continue;
+      }
+      List<LeaderboardEntry> updated = new ArrayList<>(current);
+      if (index != -1) {
+        updated.remove(index);
+      }
+      LeaderboardEntry entry = new LeaderboardEntry(user.getPlayer().getUniqueId(), value);
+      nameCache.put(entry.getUuid(), user.getPlayer().getName());
+      int insertAt = Collections.binarySearch(updated, entry, DESCENDING);
+      updated.add(insertAt < 0 ? -insertAt - 1 : insertAt, entry);
+      if (updated.size() > TOP_SIZE) {
+        updated.remove(updated.size() - 1);
+      }
+      leaderboard.setValue(Collections.unmodifiableList(updated));
+    }
+  }
+
+  /**
+   * @param stat persistent statistic
+   * @return unmodifiable leaderboard sorted descending, at most {@link #TOP_SIZE} entries
+   */
+  public List<LeaderboardEntry> getLeaderboard(StatsStorage.StatisticType stat) {
+    List<LeaderboardEntry> leaderboard = leaderboards.get(stat);
+    return leaderboard == null ? Collections.emptyList() : leaderboard;
+  }
+
+}
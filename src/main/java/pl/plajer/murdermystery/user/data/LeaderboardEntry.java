@@ -0,0 +1,44 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.UUID;
+
+/**
+ * Single immutable row of the leaderboard.
+ */
+public class LeaderboardEntry {
+
+  private final UUID uuid;
+  private final int value;
+
+  public LeaderboardEntry(UUID uuid, int value) {
+    this.uuid = uuid;
+    this.value = value;
+  }
+
+  public UUID getUuid() {
+    return uuid;
+  }
+
+  public int getValue() {
+    return value;
+  }
+
+}
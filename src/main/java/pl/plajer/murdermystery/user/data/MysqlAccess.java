@@ -0,0 +1,168 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import pl.plajerlair.commonsbox.database.MysqlDatabase;
+
+/**
+ * Data access layer on top of commons-box {@link MysqlDatabase} connection pool.
+ * <p>
+ * Every statement is prepared and closed together with its result set and pooled connection,
+ * duration of each named query is recorded in {@link QueryTimings} and connection borrowing
+ * is tracked to show whether the pool is saturated.
+ * Queries are cached as SQL text by their callers, parsed statements are cached
+ * by the driver when enabled in the JDBC url (cachePrepStmts).
+ */
+public class MysqlAccess {
+
+  /**
+   * Connection borrows slower than this (in milliseconds) mean all pooled connections were busy
+   */
+  public static final long SLOW_BORROW = 50;
+
+  private final MysqlDatabase database;
+  private final Map<String, QueryTimings> timings = new ConcurrentHashMap<>();
+  private final QueryTimings borrowTimings = new QueryTimings();
+  private final AtomicInteger activeConnections = new AtomicInteger();
+  private final AtomicInteger peakConnections = new AtomicInteger();
+  private final LongAdder slowBorrows = new LongAdder();
+
+  public MysqlAccess(MysqlDatabase database) {
+    this.database = database;
+  }
+
+  @FunctionalInterface
+  public interface SqlTask<T> {
+    T run(Connection connection) throws SQLException;
+  }
+
+  @FunctionalInterface
+  public interface Binder {
+    void bind(PreparedStatement statement) throws SQLException;
+  }
+
+  @FunctionalInterface
+  public interface Mapper<T> {
+    T map(ResultSet set) throws SQLException;
+  }
+
+  /**
+   * Runs task with pooled connection which is returned to the pool afterwards,
+   * blocking call which must be done asynchronously.
+   *
+   * @param name name of the query used in timings
+   * @param task task to run, must close statements it creates
+   * @return result of the task
+   * @throws SQLException if connection couldn't be borrowed or task failed
+   */
+  public <T> T execute(String name, SqlTask<T> task) throws SQLException {
+    long borrowStart = System.nanoTime();
+    Connection connection;
+    try {
+      connection = database.getConnection();
+    } catch (SQLException ex) {
+      borrowTimings.record(System.nanoTime() - borrowStart, true);
+      throw ex;
+    }
+    long start = System.nanoTime();
+    borrowTimings.record(start - borrowStart, false);
+    if (start - borrowStart >= SLOW_BORROW * 1_000_000) {
+      slowBorrows.increment();
+    }
+    peakConnections.accumulateAndGet(activeConnections.incrementAndGet(), Math::max);
+    boolean failed = true;
+    try (Connection borrowed = connection) {
+      T result = task.run(borrowed);
+      failed = false;
+      return result;
+    } finally {
+      activeConnections.decrementAndGet();
+      timings.computeIfAbsent(name, key -> new QueryTimings()).record(System.nanoTime() - start, failed);
+    }
+  }
+
+  /**
+   * Runs prepared query and maps its result set.
+   *
+   * @see #execute(String, SqlTask)
+   */
+  public <T> T query(String name, String sql, Binder binder, Mapper<T> mapper) throws SQLException {
+    return execute(name, connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        binder.bind(statement);
+        try (ResultSet set = statement.executeQuery()) {
+          return mapper.map(set);
+        }
+      }
+    });
+  }
+
+  /**
+   * Runs prepared update.
+   *
+   * @return amount of changed rows
+   * @see #execute(String, SqlTask)
+   */
+  public int update(String name, String sql, Binder binder) throws SQLException {
+    return execute(name, connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        binder.bind(statement);
+        return statement.executeUpdate();
+      }
+    });
+  }
+
+  /**
+   * @return timings of queries sorted by their names
+   */
+  public Map<String, QueryTimings> getTimings() {
+    return Collections.unmodifiableMap(new TreeMap<>(timings));
+  }
+
+  /**
+   * @return timings of borrowing connections from the pool
+   */
+  public QueryTimings getBorrowTimings() {
+    return borrowTimings;
+  }
+
+  public int getActiveConnections() {
+    return activeConnections.get();
+  }
+
+  public int getPeakConnections() {
+    return peakConnections.get();
+  }
+
+  public long getSlowBorrows() {
+    return slowBorrows.sum();
+  }
+
+}
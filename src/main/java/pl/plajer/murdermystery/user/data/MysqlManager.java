@@ -18,23 +18,31 @@
 
 package pl.plajer.murdermystery.user.data;
 
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.entity.Player;
 
 import pl.plajer.murdermystery.Main;
 import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
 import pl.plajer.murdermystery.user.User;
 import pl.plajer.murdermystery.utils.Debugger;
 import pl.plajer.murdermystery.utils.MessageUtils;
 import pl.plajerlair.commonsbox.database.MysqlDatabase;
-import pl.plajerlair.commonsbox.minecraft.configuration.ConfigUtils;
 
 /**
  * @author Plajer
@@ -45,25 +53,18 @@ public class MysqlManager implements UserDatabase {
 
   private Main plugin;
   private MysqlDatabase database;
+  private MysqlAccess access;
+  private MysqlStatsWriter statsWriter;
 
   public MysqlManager(Main plugin) {
     this.plugin = plugin;
     database = plugin.getMysqlDatabase();
+    access = new MysqlAccess(database);
+    statsWriter = new MysqlStatsWriter(plugin, access, getTableName(), plugin.getGameSettings().isMysqlDeltaUpdates());
     Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-      try (Connection connection = database.getConnection()) {
-        Statement statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + getTableName() + "` (\n"
-          + "  `UUID` char(36) NOT NULL PRIMARY KEY,\n"
-          + "  `name` varchar(32) NOT NULL,\n"
-          + "  `kills` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `deaths` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `highestscore` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `gamesplayed` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `wins` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `loses` int(11) NOT NULL DEFAULT '0',\n"
-          + "  `contribmurderer` int(11) NOT NULL DEFAULT '1',\n"
-          + "  `contribdetective` int(11) NOT NULL DEFAULT '1'\n"
-          + ");");
+      try {
+        int version = new MysqlSchema(plugin, access, getTableName()).migrate();
+        statsWriter.setTrackLastSeen(version >= 2);
       } catch (SQLException e) {
         e.printStackTrace();
         MessageUtils.errorOccurred();
@@ -75,67 +76,200 @@ public class MysqlManager implements UserDatabase {
 
   @Override
   public void saveStatistic(User user, StatsStorage.StatisticType stat) {
-    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-      database.executeUpdate("UPDATE " + getTableName() + " SET " + stat.getName() + "=" + user.getStat(stat) + " WHERE UUID='" + user.getPlayer().getUniqueId().toString() + "';");
-      Debugger.debug(Level.INFO, "Executed MySQL: " + "UPDATE " + getTableName() + " SET " + stat.getName() + "=" + user.getStat(stat) + " WHERE UUID='" + user.getPlayer().getUniqueId().toString() + "';");
-    });
+    statsWriter.markDirty(user);
   }
 
   @Override
   public void saveAllStatistic(User user) {
-    StringBuilder update = new StringBuilder(" SET ");
     for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
       if (!stat.isPersistent()) {
         user.setStat(stat, 0);
       }
-      if (update.toString().equalsIgnoreCase(" SET ")){
-        update.append(stat.getName()).append("=").append(user.getStat(stat));
-      }
-      update.append(", ").append(stat.getName()).append("=").append(user.getStat(stat));
     }
-    String finalUpdate = update.toString();
+    statsWriter.markDirty(user);
+    statsWriter.requestFlush();
+  }
 
-    Bukkit.getScheduler().runTaskAsynchronously(plugin, () ->
-      database.executeUpdate("UPDATE "+getTableName()+ finalUpdate + " WHERE UUID='" + user.getPlayer().getUniqueId().toString() + "';"));
+  @Override
+  public void shutdown() {
+    statsWriter.drain(plugin.getGameSettings().getMysqlShutdownFlushTimeout() * 1000L);
   }
 
   @Override
-  public void loadStatistics(User user) {
+  public CompletableFuture<Void> loadStatistics(User user) {
+    return loadStatistics(Collections.singletonList(user));
+  }
+
+  @Override
+  public CompletableFuture<Void> loadStatistics(Collection<User> users) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    Map<String, User> byUuid = new LinkedHashMap<>();
+    Map<String, String> names = new HashMap<>();
+    for (User user : users) {
+      byUuid.put(user.getPlayer().getUniqueId().toString(), user);
+      names.put(user.getPlayer().getUniqueId().toString(), user.getPlayer().getName());
+    }
     Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-      String uuid = user.getPlayer().getUniqueId().toString();
-      try (Connection connection = database.getConnection()) {
-        Statement statement = connection.createStatement();
-        ResultSet rs = statement.executeQuery("SELECT * from " + getTableName() + " WHERE UUID='" + uuid + "';");
-        if (rs.next()) {
-          //player already exists - get the stats
-          Debugger.debug(Level.INFO, "MySQL Stats | Player {0} already exist. Getting Stats...", user.getPlayer().getName());
-          for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
-            if (!stat.isPersistent()) continue;
-            int val = rs.getInt(stat.getName());
-            user.setStat(stat, val);
+      Map<String, LoadedStatistics> loaded = new HashMap<>();
+      List<String> renamed = new ArrayList<>();
+      List<String> uuids = new ArrayList<>(byUuid.keySet());
+      try {
+        access.execute("load", connection -> {
+          for (int from = 0; from < uuids.size(); from += BULK_LOAD_CHUNK) {
+            List<String> chunk = uuids.subList(from, Math.min(from + BULK_LOAD_CHUNK, uuids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + getTableName() + " WHERE UUID IN (" + placeholders + ");")) {
+              for (int i = 0; i < chunk.size(); i++) {
+                statement.setString(i + 1, chunk.get(i));
+              }
+              try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                  Map<StatsStorage.StatisticType, Integer> stats = new EnumMap<>(StatsStorage.StatisticType.class);
+                  for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+                    if (!stat.isPersistent()) continue;
+                    stats.put(stat, rs.getInt(stat.getName()));
+                  }
+                  String uuid = rs.getString("UUID");
+                  loaded.put(uuid, LoadedStatistics.of(stats));
+                  if (!names.get(uuid).equals(rs.getString("name"))) {
+                    renamed.add(uuid);
+                  }
+                }
+              }
+            }
           }
-        } else {
-          //player doesn't exist - make a new record
-          Debugger.debug(Level.INFO, "MySQL Stats | Player {0} does not exist. Creating new one...", user.getPlayer().getName());
-          statement.executeUpdate("INSERT INTO " + getTableName() + " (UUID,name) VALUES ('" + uuid + "','" + user.getPlayer().getName() + "');");
-          for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
-            if (!stat.isPersistent()) continue;
-            if (stat == StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE || stat == StatsStorage.StatisticType.CONTRIBUTION_MURDERER) {
-              user.setStat(stat, 1);
-            } else {
-              user.setStat(stat, 0);
+          Debugger.debug(Level.INFO, "MySQL Stats | Loaded {0} of {1} players", loaded.size(), uuids.size());
+          //players that don't exist get new records
+          try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + getTableName() + " (UUID,name) VALUES (?,?);")) {
+            int created = 0;
+            for (String uuid : uuids) {
+              if (loaded.containsKey(uuid)) {
+                continue;
+              }
+              insert.setString(1, uuid);
+              insert.setString(2, names.get(uuid));
+              insert.addBatch();
+              Map<StatsStorage.StatisticType, Integer> stats = new EnumMap<>(StatsStorage.StatisticType.class);
+              for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+                if (!stat.isPersistent()) continue;
+                if (stat == StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE || stat == StatsStorage.StatisticType.CONTRIBUTION_MURDERER) {
+                  stats.put(stat, 1);
+                } else {
+                  stats.put(stat, 0);
+                }
+              }
+              loaded.put(uuid, LoadedStatistics.of(stats));
+              created++;
+            }
+            if (created > 0) {
+              insert.executeBatch();
+              Debugger.debug(Level.INFO, "MySQL Stats | Created {0} new players", created);
             }
           }
-        }
+          if (!renamed.isEmpty()) {
+            try (PreparedStatement rename = connection.prepareStatement("UPDATE " + getTableName() + " SET name=? WHERE UUID=?;")) {
+              for (String uuid : renamed) {
+                rename.setString(1, names.get(uuid));
+                rename.setString(2, uuid);
+                rename.addBatch();
+              }
+              rename.executeBatch();
+            }
+            Debugger.debug(Level.INFO, "MySQL Stats | Updated names of {0} renamed players", renamed.size());
+          }
+          return null;
+        });
       } catch (SQLException e) {
         e.printStackTrace();
+        completeOnMainThread(future, () -> future.completeExceptionally(e));
+        return;
       }
+      //only immutable batches cross the threads, all statistics are applied at once on the main thread
+      completeOnMainThread(future, () -> {
+        loaded.forEach((uuid, fetched) -> {
+          User user = byUuid.get(uuid);
+          LoadedStatistics stats = statsWriter.mergeSpilled(user.getPlayer().getUniqueId(), fetched);
+          user.applyLoadedStatistics(stats);
+          statsWriter.setBaseline(user, stats);
+        });
+        future.complete(null);
+      });
     });
+    return future;
+  }
+
+  @Override
+  public List<LeaderboardEntry> getTopStatistics(StatsStorage.StatisticType stat, int limit) throws SQLException {
+    return access.query("top", "SELECT UUID, " + stat.getName() + " FROM " + getTableName() + " ORDER BY " + stat.getName() + " DESC LIMIT ?;",
+      statement -> statement.setInt(1, limit), set -> {
+        List<LeaderboardEntry> top = new ArrayList<>(limit);
+        while (set.next()) {
+          top.add(new LeaderboardEntry(UUID.fromString(set.getString("UUID")), set.getInt(2)));
+        }
+        return top;
+      });
+  }
+
+  @Override
+  public Map<UUID, String> getNames(Collection<UUID> uuids) throws SQLException {
+    return access.execute("names", connection -> {
+      Map<UUID, String> names = new HashMap<>();
+      List<UUID> list = new ArrayList<>(uuids);
+      for (int from = 0; from < list.size(); from += BULK_LOAD_CHUNK) {
+        List<UUID> chunk = list.subList(from, Math.min(from + BULK_LOAD_CHUNK, list.size()));
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        try (PreparedStatement statement = connection.prepareStatement("SELECT UUID, name FROM " + getTableName() + " WHERE UUID IN (" + placeholders + ");")) {
+          for (int i = 0; i < chunk.size(); i++) {
+            statement.setString(i + 1, chunk.get(i).toString());
+          }
+          try (ResultSet set = statement.executeQuery()) {
+            while (set.next()) {
+              names.put(UUID.fromString(set.getString("UUID")), set.getString("name"));
+            }
+          }
+        }
+      }
+      return names;
+    });
+  }
+
+  @Override
+  public void forEachStatistics(BiConsumer<UUID, int[]> consumer) throws SQLException {
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    StringBuilder query = new StringBuilder("SELECT UUID");
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (stat.isPersistent()) {
+        persistent.add(stat);
+        query.append(", ").append(stat.getName());
+      }
+    }
+    access.query("scan", query.append(" FROM ").append(getTableName()).append(";").toString(), statement -> {
+    }, set -> {
+      while (set.next()) {
+        int[] values = new int[persistent.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = set.getInt(i + 2);
+        }
+        consumer.accept(UUID.fromString(set.getString(1)), values);
+      }
+      return null;
+    });
+  }
+
+  private void completeOnMainThread(CompletableFuture<Void> future, Runnable completion) {
+    if (plugin.isEnabled()) {
+      Bukkit.getScheduler().runTask(plugin, completion);
+    } else {
+      future.cancel(false);
+    }
   }
 
   public String getTableName() {
-    FileConfiguration config = ConfigUtils.getConfig(plugin, "mysql");
-    return config.getString("table", "playerstats");
+    return plugin.getGameSettings().getMysqlTable();
+  }
+
+  public MysqlAccess getAccess() {
+    return access;
   }
 
   public MysqlDatabase getDatabase() {
@@ -0,0 +1,189 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * Versioned schema of MySQL statistics table.
+ * <p>
+ * Applied version of every stats table is kept in {@link #VERSION_TABLE}, missing migrations
+ * are run one by one and each of them is recorded once done, so interrupted upgrade continues on next start.
+ * Migrations are written to keep the table usable while they run: indexes are built online
+ * and no existing rows are rewritten.
+ */
+public class MysqlSchema {
+
+  public static final String VERSION_TABLE = "murdermystery_schema";
+  /**
+   * Version of the schema created by current plugin version
+   * <ol>
+   * <li>statistics table</li>
+   * <li>last_seen column</li>
+   * <li>secondary index of every statistic column</li>
+   * </ol>
+   */
+  public static final int LATEST_VERSION = 3;
+
+  private final Main plugin;
+  private final MysqlAccess access;
+  private final String tableName;
+
+  public MysqlSchema(Main plugin, MysqlAccess access, String tableName) {
+    this.plugin = plugin;
+    this.access = access;
+    this.tableName = tableName;
+  }
+
+  /**
+   * Upgrades the table to {@link #LATEST_VERSION}, blocking call which must be done asynchronously.
+   *
+   * @return applied version of the schema
+   * @throws SQLException if any migration failed, previous migrations stay applied
+   */
+  public int migrate() throws SQLException {
+    return access.execute("migrate", connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + VERSION_TABLE + "` (\n"
+          + "  `table_name` varchar(64) NOT NULL PRIMARY KEY,\n"
+          + "  `version` int(11) NOT NULL\n"
+          + ");");
+      }
+      int version = getVersion(connection);
+      while (version < LATEST_VERSION) {
+        long start = System.currentTimeMillis();
+        version++;
+        switch (version) {
+          case 1:
+            createTable(connection);
+            break;
+          case 2:
+            addLastSeen(connection);
+            break;
+          case 3:
+            addStatisticIndexes(connection);
+            break;
+          default:
+            break;
+        }
+        setVersion(connection, version);
+        plugin.getLogger().log(Level.INFO, "Migrated MySQL table " + tableName + " to schema version " + version + ", took " + (System.currentTimeMillis() - start) + "ms");
+      }
+      return version;
+    });
+  }
+
+  private int getVersion(Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT version FROM `" + VERSION_TABLE + "` WHERE table_name=?;")) {
+      statement.setString(1, tableName);
+      try (ResultSet set = statement.executeQuery()) {
+        if (set.next()) {
+          return set.getInt(1);
+        }
+      }
+    }
+    //tables created before versioning have the first version
+    try (ResultSet set = connection.getMetaData().getTables(connection.getCatalog(), null, tableName, null)) {
+      return set.next() ? 1 : 0;
+    }
+  }
+
+  private void setVersion(Connection connection, int version) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("INSERT INTO `" + VERSION_TABLE + "` (table_name, version) VALUES (?,?) ON DUPLICATE KEY UPDATE version=VALUES(version);")) {
+      statement.setString(1, tableName);
+      statement.setInt(2, version);
+      statement.executeUpdate();
+    }
+  }
+
+  private void createTable(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tableName + "` (\n"
+        + "  `UUID` char(36) NOT NULL PRIMARY KEY,\n"
+        + "  `name` varchar(32) NOT NULL,\n"
+        + "  `kills` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `deaths` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `highestscore` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `gamesplayed` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `wins` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `loses` int(11) NOT NULL DEFAULT '0',\n"
+        + "  `contribmurderer` int(11) NOT NULL DEFAULT '1',\n"
+        + "  `contribdetective` int(11) NOT NULL DEFAULT '1'\n"
+        + ");");
+    }
+  }
+
+  /**
+   * Adds nullable last_seen column (epoch millis). Rows of players not seen since the upgrade stay NULL,
+   * {@link MysqlStatsWriter} sets it whenever the row is written.
+   */
+  private void addLastSeen(Connection connection) throws SQLException {
+    if (!hasColumn(connection, "last_seen")) {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("ALTER TABLE `" + tableName + "` ADD COLUMN `last_seen` bigint(20) NULL DEFAULT NULL;");
+      }
+    }
+  }
+
+  private void addStatisticIndexes(Connection connection) throws SQLException {
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (!stat.isPersistent() || hasIndex(connection, "idx_" + stat.getName())) {
+        continue;
+      }
+      try (Statement statement = connection.createStatement()) {
+        try {
+          //built in place without blocking reads and writes of the table
+          statement.executeUpdate("ALTER TABLE `" + tableName + "` ADD INDEX `idx_" + stat.getName() + "` (`" + stat.getName() + "`), ALGORITHM=INPLACE, LOCK=NONE;");
+        } catch (SQLException ex) {
+          Debugger.debug(Level.WARNING, "MySQL migration | Online index build not supported ({0}), building idx_{1} with table lock", ex.getMessage(), stat.getName());
+          statement.executeUpdate("CREATE INDEX `idx_" + stat.getName() + "` ON `" + tableName + "` (`" + stat.getName() + "`);");
+        }
+      }
+    }
+  }
+
+  private boolean hasColumn(Connection connection, String column) throws SQLException {
+    try (ResultSet set = connection.getMetaData().getColumns(connection.getCatalog(), null, tableName, column)) {
+      return set.next();
+    }
+  }
+
+  private boolean hasIndex(Connection connection, String index) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet set = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+      while (set.next()) {
+        if (index.equalsIgnoreCase(set.getString("INDEX_NAME"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+}
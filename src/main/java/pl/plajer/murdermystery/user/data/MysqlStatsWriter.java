@@ -0,0 +1,474 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
+import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * Write-behind buffer for MySQL statistics.
+ * <p>
+ * Changed statistics are only marked as dirty on the main thread, repeated changes of the same user
+ * are merged into single row which is written with the rest of dirty rows as one JDBC batch
+ * every {@link #FLUSH_INTERVAL} ticks or shortly after the game ends.
+ * Failed batches are merged back and retried with exponential backoff.
+ * <p>
+ * In delta mode rows hold changes since the values were loaded and are written as increments
+ * ({@code kills=kills+?}, {@code highestscore=GREATEST(highestscore, ?)}), so multiple servers
+ * can share the same table without overwriting each other.
+ * <p>
+ * Rows that can't be written when plugin is being disabled are kept in {@link #SPILL_FILE}
+ * and replayed on next start. Replayed absolute rows are newer than the database until they're written,
+ * so they replace values loaded for these players with {@link #mergeSpilled(UUID, LoadedStatistics)}.
+ */
+public class MysqlStatsWriter {
+
+  /**
+   * Interval (in ticks) of periodic flush
+   */
+  public static final long FLUSH_INTERVAL = 20 * 30;
+  /**
+   * Amount of dirty users that triggers flush without waiting for the interval,
+   * queue never holds more than one row per user so it can't outgrow the player base
+   */
+  public static final int MAX_PENDING = 500;
+  public static final String SPILL_FILE = "mysql-stats.spill";
+  private static final long MIN_BACKOFF = 1000;
+  private static final long MAX_BACKOFF = 60 * 1000;
+
+  private final Main plugin;
+  private final MysqlAccess access;
+  private final String tableName;
+  private final boolean deltaUpdates;
+  private final StatsStorage.StatisticType[] columns;
+  private final String updateQuery;
+  private final String updateLastSeenQuery;
+  private final File spillFile;
+  private final Object flushLock = new Object();
+  //values already accounted for in the database, used in delta mode on the main thread only
+  private final Map<User, int[]> baselines = new WeakHashMap<>();
+  //absolute rows replayed from the spill file not yet merged into loaded statistics, used on the main thread only
+  private final Map<UUID, int[]> spilled = new HashMap<>();
+  private Map<UUID, int[]> pending = new LinkedHashMap<>();
+  private BukkitTask flushTask;
+  private boolean flushScheduled = false;
+  //true while rows replayed from the spill file aren't written yet
+  private boolean spillReplayPending = false;
+  //set once the table has last_seen column
+  private volatile boolean trackLastSeen = false;
+  //guarded by flushLock
+  private long backoff = 0;
+  private long nextAttempt = 0;
+
+  public MysqlStatsWriter(Main plugin, MysqlAccess access, String tableName, boolean deltaUpdates) {
+    this.plugin = plugin;
+    this.access = access;
+    this.tableName = tableName;
+    this.deltaUpdates = deltaUpdates;
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    StringBuilder query = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (!stat.isPersistent()) {
+        continue;
+      }
+      query.append(persistent.isEmpty() ? "" : ", ").append(stat.getName()).append("=");
+      if (!deltaUpdates) {
+        query.append("?");
+      } else if (stat == StatsStorage.StatisticType.HIGHEST_SCORE) {
+        query.append("GREATEST(").append(stat.getName()).append(", ?)");
+      } else {
+        query.append(stat.getName()).append("+?");
+      }
+      persistent.add(stat);
+    }
+    this.columns = persistent.toArray(new StatsStorage.StatisticType[0]);
+    this.updateLastSeenQuery = query + ", last_seen=? WHERE UUID=?;";
+    this.updateQuery = query.append(" WHERE UUID=?;").toString();
+    this.spillFile = new File(plugin.getDataFolder(), SPILL_FILE);
+    loadSpill();
+    flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flushIfDue, FLUSH_INTERVAL, FLUSH_INTERVAL);
+    if (spillReplayPending) {
+      requestFlush();
+    }
+  }
+
+  private String getSpillHeader() {
+    //absolute and delta rows can't be replayed in the other mode
+    StringBuilder header = new StringBuilder(deltaUpdates ? "DELTA;UUID" : "UUID");
+    for (StatsStorage.StatisticType stat : columns) {
+      header.append(';').append(stat.getName());
+    }
+    return header.toString();
+  }
+
+  /**
+   * Queues rows left by previous shutdown, spill file is deleted once they're written.
+   */
+  private void loadSpill() {
+    if (!spillFile.exists()) {
+      return;
+    }
+    try {
+      List<String> lines = Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8);
+      if (lines.isEmpty() || !lines.get(0).equals(getSpillHeader())) {
+        //statistic types changed, we can't tell which values belong where
+        plugin.getLogger().log(Level.WARNING, "Statistics in " + SPILL_FILE + " have unknown format, they won't be written to MySQL");
+        return;
+      }
+      for (String line : lines.subList(1, lines.size())) {
+        String[] data = line.split(";");
+        int[] values = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+          values[i] = Integer.parseInt(data[i + 1]);
+        }
+        pending.put(UUID.fromString(data[0]), values);
+        if (!deltaUpdates) {
+          spilled.put(UUID.fromString(data[0]), values.clone());
+        }
+      }
+      spillReplayPending = true;
+      plugin.getLogger().log(Level.INFO, "Replaying statistics of " + pending.size() + " players left in " + SPILL_FILE);
+    } catch (IOException | RuntimeException ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not read " + SPILL_FILE, ex);
+    }
+  }
+
+  private void writeSpill(Map<UUID, int[]> rows) {
+    List<String> lines = new ArrayList<>(rows.size() + 1);
+    lines.add(getSpillHeader());
+    for (Map.Entry<UUID, int[]> row : rows.entrySet()) {
+      StringBuilder line = new StringBuilder(row.getKey().toString());
+      for (int value : row.getValue()) {
+        line.append(';').append(value);
+      }
+      lines.add(line.toString());
+    }
+    Path temp = new File(spillFile.getParentFile(), SPILL_FILE + ".tmp").toPath();
+    try {
+      Files.write(temp, lines, StandardCharsets.UTF_8);
+      try {
+        Files.move(temp, spillFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, spillFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      plugin.getLogger().log(Level.WARNING, "Statistics of " + rows.size() + " players couldn't be written to MySQL, saved them to " + SPILL_FILE + " to write them on next start");
+    } catch (IOException ex) {
+      plugin.getLogger().log(Level.SEVERE, "Could not save statistics of " + rows.size() + " players to " + SPILL_FILE + ", they are lost", ex);
+    }
+  }
+
+  private int[] capture(User user) {
+    int[] values = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      values[i] = user.getStat(columns[i]);
+    }
+    return values;
+  }
+
+  /**
+   * @param trackLastSeen true to update last_seen column of written rows
+   */
+  public void setTrackLastSeen(boolean trackLastSeen) {
+    this.trackLastSeen = trackLastSeen;
+  }
+
+  /**
+   * Remembers values of the user loaded from the database, must be called from main thread.
+   * Progress the user made before the load is not part of the baseline so it's written as change.
+   *
+   * @param user   user whose statistics were loaded
+   * @param loaded values loaded from the database
+   */
+  public void setBaseline(User user, LoadedStatistics loaded) {
+    if (!deltaUpdates) {
+      return;
+    }
+    int[] values = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      values[i] = loaded.get(columns[i]);
+    }
+    baselines.put(user, values);
+  }
+
+  /**
+   * Replaces loaded values of the player with row replayed from the spill file, must be called from main thread.
+   * The row might not be written yet when the database was read, later absolute writes of the user
+   * would overwrite it with older values then. Each row is merged only into the first load of the player,
+   * newer saves of the player already contain it.
+   * <p>
+   * Delta rows are left as they are, they're written as increments regardless of loaded values.
+   *
+   * @param uuid   uuid of the player
+   * @param loaded values loaded from the database
+   * @return loaded values with spilled progress of the player
+   */
+  public LoadedStatistics mergeSpilled(UUID uuid, LoadedStatistics loaded) {
+    int[] row = spilled.remove(uuid);
+    return row == null ? loaded : LoadedStatistics.of(columns, row);
+  }
+
+  /**
+   * Sums increments, highest score is kept as absolute maximum.
+   */
+  private int[] mergeDeltas(int[] first, int[] second) {
+    int[] merged = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      merged[i] = columns[i] == StatsStorage.StatisticType.HIGHEST_SCORE ? Math.max(first[i], second[i]) : first[i] + second[i];
+    }
+    return merged;
+  }
+
+  /**
+   * Marks statistics of the user as dirty, must be called from main thread.
+   * Current values are captured immediately, so later changes of the user
+   * only replace (or in delta mode add to) pending row instead of queueing another update.
+   *
+   * @param user user whose statistics changed
+   */
+  public void markDirty(User user) {
+    int[] values = capture(user);
+    if (deltaUpdates) {
+      //missing baseline means nothing was loaded, whole values are changes then
+      int[] baseline = baselines.put(user, values.clone());
+      if (baseline != null) {
+        boolean changed = false;
+        for (int i = 0; i < columns.length; i++) {
+          if (columns[i] != StatsStorage.StatisticType.HIGHEST_SCORE) {
+            values[i] -= baseline[i];
+          }
+          changed |= columns[i] == StatsStorage.StatisticType.HIGHEST_SCORE ? values[i] != baseline[i] : values[i] != 0;
+        }
+        if (!changed) {
+          return;
+        }
+      }
+    }
+    int size;
+    synchronized (this) {
+      if (deltaUpdates) {
+        pending.merge(user.getPlayer().getUniqueId(), values, this::mergeDeltas);
+      } else {
+        pending.put(user.getPlayer().getUniqueId(), values);
+      }
+      size = pending.size();
+    }
+    if (size >= MAX_PENDING) {
+      requestFlush();
+    }
+  }
+
+  /**
+   * Schedules asynchronous flush on next tick, multiple requests
+   * made in the same tick (e.g. for all players of ended game) are written as one batch.
+   */
+  public synchronized void requestFlush() {
+    //no async tasks while disabling, drain() writes everything then
+    if (flushScheduled || flushTask == null || !plugin.isEnabled()) {
+      return;
+    }
+    flushScheduled = true;
+    Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
+      synchronized (this) {
+        flushScheduled = false;
+      }
+      flushIfDue();
+    }, 1L);
+  }
+
+  private void flushIfDue() {
+    long retryIn;
+    synchronized (flushLock) {
+      if (System.currentTimeMillis() < nextAttempt) {
+        return;
+      }
+      if (flush()) {
+        backoff = 0;
+        nextAttempt = 0;
+        return;
+      }
+      backoff = backoff == 0 ? MIN_BACKOFF : Math.min(backoff * 2, MAX_BACKOFF);
+      nextAttempt = System.currentTimeMillis() + backoff;
+      retryIn = backoff;
+    }
+    Debugger.debug(Level.WARNING, "MySQL stats flush failed, retrying in {0}ms", retryIn);
+    synchronized (this) {
+      if (flushTask != null) {
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, this::flushIfDue, retryIn / 50);
+      }
+    }
+  }
+
+  /**
+   * Writes all pending rows as single batch in one transaction.
+   *
+   * @return false if batch failed and rows were queued back
+   */
+  private boolean flush() {
+    synchronized (flushLock) {
+      Map<UUID, int[]> batch;
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return true;
+        }
+        batch = pending;
+        pending = new LinkedHashMap<>();
+      }
+      long start = System.currentTimeMillis();
+      boolean lastSeen = trackLastSeen;
+      try {
+        access.execute("flush", connection -> {
+          connection.setAutoCommit(false);
+          try (PreparedStatement statement = connection.prepareStatement(lastSeen ? updateLastSeenQuery : updateQuery)) {
+            for (Map.Entry<UUID, int[]> entry : batch.entrySet()) {
+              int[] values = entry.getValue();
+              int index = 1;
+              for (int value : values) {
+                statement.setInt(index++, value);
+              }
+              if (lastSeen) {
+                statement.setLong(index++, start);
+              }
+              statement.setString(index, entry.getKey().toString());
+              statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+          } catch (SQLException | RuntimeException e) {
+            //re-enabling auto commit would commit the failed batch otherwise
+            connection.rollback();
+            throw e;
+          } finally {
+            connection.setAutoCommit(true);
+          }
+          return null;
+        });
+        Debugger.debug(Level.INFO, "Flushed MySQL stats of {0} users took {1}ms", batch.size(), System.currentTimeMillis() - start);
+        boolean replayed;
+        synchronized (this) {
+          //replayed rows were pending until now so this batch contained them
+          replayed = spillReplayPending;
+          spillReplayPending = false;
+        }
+        if (replayed && !spillFile.delete()) {
+          plugin.getLogger().log(Level.WARNING, "Could not delete replayed " + SPILL_FILE + ", delete it manually");
+        }
+        return true;
+      } catch (SQLException e) {
+        plugin.getLogger().log(Level.WARNING, "Could not flush MySQL stats to " + tableName + " " + e.getSQLState() + " (" + e.getErrorCode() + ")");
+        requeue(batch);
+        return false;
+      } catch (RuntimeException e) {
+        //e.g. closed pool, rows must not be lost with the batch
+        plugin.getLogger().log(Level.WARNING, "Could not flush MySQL stats to " + tableName, e);
+        requeue(batch);
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Merges rows of failed batch back to pending ones.
+   */
+  private synchronized void requeue(Map<UUID, int[]> batch) {
+    for (Map.Entry<UUID, int[]> entry : batch.entrySet()) {
+      if (deltaUpdates) {
+        pending.merge(entry.getKey(), entry.getValue(), this::mergeDeltas);
+      } else {
+        //rows changed in the meantime are newer than failed ones
+        pending.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Stops periodic flushing and writes all pending rows waiting at most given time,
+   * used when plugin is being disabled and async tasks can't be scheduled anymore.
+   * Rows that weren't written in time are saved to the spill file.
+   *
+   * @param timeout maximum time (in milliseconds) to wait for the database
+   */
+  public void drain(long timeout) {
+    Map<UUID, int[]> rows;
+    synchronized (this) {
+      if (flushTask != null) {
+        flushTask.cancel();
+        flushTask = null;
+      }
+      rows = new LinkedHashMap<>(pending);
+    }
+    if (rows.isEmpty()) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    Thread flushThread = new Thread(() -> {
+      if (!flush()) {
+        //single immediate retry, connection might have been recycled by the pool
+        flush();
+      }
+    }, "MurderMystery MySQL shutdown flush");
+    flushThread.setDaemon(true);
+    flushThread.start();
+    try {
+      flushThread.join(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (flushThread.isAlive()) {
+      if (!deltaUpdates) {
+        //outcome of the running transaction is unknown, rows hold absolute values so writing them again is safe
+        writeSpill(rows);
+        return;
+      }
+      //increments of the running transaction can't be replayed without risk of counting them twice
+      plugin.getLogger().log(Level.WARNING, "MySQL shutdown flush timed out, statistic changes being written may be lost");
+    }
+    synchronized (this) {
+      rows = new LinkedHashMap<>(pending);
+    }
+    if (!rows.isEmpty()) {
+      writeSpill(rows);
+    }
+    Debugger.debug(Level.INFO, "MySQL shutdown flush finished took {0}ms", System.currentTimeMillis() - start);
+  }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import javax.annotation.Nullable;
+
+import org.bukkit.Bukkit;
+
+import pl.plajer.murdermystery.Main;
+
+/**
+ * Bounded LRU cache of player names shared by leaderboards and statistics displays.
+ * <p>
+ * Names are fetched in bulk from the storage (name column of MySQL and SQLite tables)
+ * on asynchronous threads only, lookups never access the storage.
+ * Players without stored name are remembered until the next leaderboard refresh
+ * so repeated lookups don't query the storage again.
+ */
+public class NameCache {
+
+  /**
+   * Maximum amount of cached names, least recently used ones are evicted first
+   */
+  public static final int MAX_SIZE = 2000;
+  /**
+   * Time (in milliseconds) for which players without stored name aren't fetched again
+   */
+  public static final long UNKNOWN_EXPIRY = LeaderboardCache.REFRESH_INTERVAL * 50;
+
+  private final Main plugin;
+  private final UserDatabase database;
+  //guarded by itself
+  private final Map<UUID, String> names = new LinkedHashMap<UUID, String>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+      return size() > MAX_SIZE;
+    }
+  };
+  private final Set<UUID> requested = ConcurrentHashMap.newKeySet();
+  //uuid -> time when the storage may be asked again
+  private final Map<UUID, Long> unknown = new ConcurrentHashMap<>();
+
+  public NameCache(Main plugin, UserDatabase database) {
+    this.plugin = plugin;
+    this.database = database;
+  }
+
+  /**
+   * @param uuid uuid of the player
+   * @return cached name or null if it's not cached
+   */
+  @Nullable
+  public String getName(UUID uuid) {
+    synchronized (names) {
+      return names.get(uuid);
+    }
+  }
+
+  /**
+   * Caches known name, e.g. of online player
+   */
+  public void put(UUID uuid, String name) {
+    synchronized (names) {
+      names.put(uuid, name);
+    }
+    unknown.remove(uuid);
+  }
+
+  /**
+   * Fetches names of all given players from the storage and replaces cached ones,
+   * blocking call which must be done asynchronously
+   *
+   * @param uuids players to fetch names of
+   */
+  public void refresh(Collection<UUID> uuids) {
+    if (uuids.isEmpty()) {
+      return;
+    }
+    try {
+      Map<UUID, String> fetched = database.getNames(uuids);
+      synchronized (names) {
+        names.putAll(fetched);
+      }
+      long now = System.currentTimeMillis();
+      unknown.values().removeIf(expiry -> expiry <= now);
+      for (UUID uuid : uuids) {
+        if (fetched.containsKey(uuid)) {
+          unknown.remove(uuid);
+        } else {
+          unknown.put(uuid, now + UNKNOWN_EXPIRY);
+        }
+      }
+    } catch (Exception ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not fetch names of " + uuids.size() + " players", ex);
+    }
+  }
+
+  /**
+   * Fetches names of given players which aren't cached yet
+   *
+   * @param uuids players to resolve names of
+   * @return future completed on the main thread once names are cached
+   */
+  public CompletableFuture<Void> resolve(Collection<UUID> uuids) {
+    List<UUID> missing = new ArrayList<>();
+    synchronized (names) {
+      for (UUID uuid : uuids) {
+        if (!names.containsKey(uuid) && !isUnknown(uuid)) {
+          missing.add(uuid);
+        }
+      }
+    }
+    if (missing.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+      refresh(missing);
+      if (plugin.isEnabled()) {
+        Bukkit.getScheduler().runTask(plugin, () -> future.complete(null));
+      } else {
+        future.cancel(false);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Non blocking lookup which schedules fetch of the name if it's not cached,
+   * subsequent lookups will return it once fetched
+   *
+   * @param uuid uuid of the player
+   * @return cached name or null if it's not cached yet
+   */
+  @Nullable
+  public String getOrRequest(UUID uuid) {
+    String name = getName(uuid);
+    if (name == null && plugin.isEnabled() && !isUnknown(uuid) && requested.add(uuid)) {
+      Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+        refresh(Collections.singletonList(uuid));
+        requested.remove(uuid);
+      });
+    }
+    return name;
+  }
+
+  private boolean isUnknown(UUID uuid) {
+    Long expiry = unknown.get(uuid);
+    return expiry != null && expiry > System.currentTimeMillis();
+  }
+
+}
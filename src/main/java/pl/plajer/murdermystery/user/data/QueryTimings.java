@@ -0,0 +1,104 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe timing histogram of single database query kind.
+ * <p>
+ * Durations are counted into fixed buckets (see {@link #BUCKETS}), so percentiles are approximated
+ * by upper bound of the bucket they fall into.
+ */
+public class QueryTimings {
+
+  /**
+   * Upper bounds (in milliseconds) of histogram buckets, last bucket holds everything slower
+   */
+  public static final long[] BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+  private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final LongAdder failures = new LongAdder();
+
+  public QueryTimings() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  void record(long nanos, boolean failed) {
+    long millis = nanos / 1_000_000;
+    int bucket = 0;
+    while (bucket < BUCKETS.length && millis >= BUCKETS[bucket]) {
+      bucket++;
+    }
+    counts[bucket].increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulateAndGet(nanos, Math::max);
+    if (failed) {
+      failures.increment();
+    }
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : counts) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  public double getAverageMillis() {
+    long count = getCount();
+    return count == 0 ? 0 : (totalNanos.sum() / (double) count) / 1_000_000.0;
+  }
+
+  public double getMaxMillis() {
+    return maxNanos.get() / 1_000_000.0;
+  }
+
+  /**
+   * @param percentile percentile in range 0-100
+   * @return upper bound (in milliseconds) of the bucket containing the percentile,
+   * -1 if it's in the last unbounded bucket
+   */
+  public long getPercentileMillis(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long target = (long) Math.ceil(count * percentile / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS.length; i++) {
+      seen += counts[i].sum();
+      if (seen >= target) {
+        return BUCKETS[i];
+      }
+    }
+    return -1;
+  }
+
+}
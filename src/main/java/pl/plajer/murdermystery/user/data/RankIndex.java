@@ -0,0 +1,184 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
+import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * In-memory rank index of every persistent statistic.
+ * <p>
+ * Each statistic keeps amount of players per value in {@link ScoreTree} (Fenwick tree),
+ * so rank of any value is answered in O(log n) without sorting the storage.
+ * Index is built asynchronously from the active {@link UserDatabase} on startup
+ * and updated whenever statistics of local players are saved. Only rows of local players
+ * are remembered, so memory doesn't grow with the amount of stored players.
+ */
+public class RankIndex {
+
+  private final Main plugin;
+  private final UserDatabase database;
+  private final StatsStorage.StatisticType[] persistentStats;
+  private final int[] columnOf = new int[StatsStorage.StatisticType.values().length];
+  //all fields below guarded by this
+  //rows of local players currently counted in the trees
+  private final Map<User, int[]> indexed = new WeakHashMap<>();
+  private ScoreTree[] trees;
+  private int size = 0;
+  //users saved while the index is being built, null once it's done
+  private Map<User, Boolean> changedWhileBuilding = new WeakHashMap<>();
+
+  public RankIndex(Main plugin, UserDatabase database) {
+    this.plugin = plugin;
+    this.database = database;
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      columnOf[stat.ordinal()] = -1;
+      if (stat.isPersistent()) {
+        columnOf[stat.ordinal()] = persistent.size();
+        persistent.add(stat);
+      }
+    }
+    persistentStats = persistent.toArray(new StatsStorage.StatisticType[0]);
+    trees = createTrees();
+    Bukkit.getScheduler().runTaskAsynchronously(plugin, this::build);
+  }
+
+  private ScoreTree[] createTrees() {
+    ScoreTree[] created = new ScoreTree[persistentStats.length];
+    for (int i = 0; i < created.length; i++) {
+      created[i] = new ScoreTree();
+    }
+    return created;
+  }
+
+  private void build() {
+    long start = System.currentTimeMillis();
+    ScoreTree[] built = createTrees();
+    int[] count = {0};
+    try {
+      database.forEachStatistics((uuid, row) -> {
+        count[0]++;
+        for (int i = 0; i < built.length; i++) {
+          built[i].add(row[i], 1);
+        }
+      });
+    } catch (Exception ex) {
+      plugin.getLogger().log(Level.WARNING, "Could not build statistics rank index", ex);
+      return;
+    }
+    synchronized (this) {
+      //storage is assumed to hold loaded values of these users, current ones replace them
+      for (User user : changedWhileBuilding.keySet()) {
+        int[] row = indexed.get(user);
+        if (row != null) {
+          move(built, loadedRow(user), row);
+        }
+      }
+      trees = built;
+      size = count[0];
+      changedWhileBuilding = null;
+    }
+    Debugger.debug(Level.INFO, "Rank index of {0} players built took {1}ms", count[0], System.currentTimeMillis() - start);
+  }
+
+  /**
+   * @return values the user had in the storage when his statistics were loaded, null if they weren't loaded
+   */
+  private int[] loadedRow(User user) {
+    LoadedStatistics loaded = user.getLoadedStatistics();
+    if (loaded == null) {
+      return null;
+    }
+    int[] row = new int[persistentStats.length];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = loaded.get(persistentStats[i]);
+    }
+    return row;
+  }
+
+  private static void move(ScoreTree[] trees, int[] previous, int[] current) {
+    for (int i = 0; i < trees.length; i++) {
+      if (previous != null && previous[i] == current[i]) {
+        continue;
+      }
+      if (previous != null) {
+        trees[i].add(previous[i], -1);
+      }
+      trees[i].add(current[i], 1);
+    }
+  }
+
+  /**
+   * Updates index with current statistics of the user, must be called from main thread
+   *
+   * @param user user whose statistics were saved
+   */
+  public void update(User user) {
+    int[] row = new int[persistentStats.length];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = user.getStat(persistentStats[i]);
+    }
+    synchronized (this) {
+      int[] previous = indexed.containsKey(user) ? indexed.get(user) : loadedRow(user);
+      if (previous != null && Arrays.equals(previous, row)) {
+        return;
+      }
+      indexed.put(user, row);
+      if (changedWhileBuilding != null) {
+        changedWhileBuilding.put(user, Boolean.TRUE);
+        return;
+      }
+      move(trees, previous, row);
+    }
+  }
+
+  /**
+   * @param stat  persistent statistic
+   * @param value value of the statistic
+   * @return 1 + amount of indexed players with higher value, 0 for non persistent statistics
+   */
+  public synchronized int getRank(StatsStorage.StatisticType stat, int value) {
+    int column = columnOf[stat.ordinal()];
+    if (column == -1) {
+      return 0;
+    }
+    return trees[column].countGreater(value) + 1;
+  }
+
+  /**
+   * @return amount of players read from the storage when the index was built
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Fenwick tree of amounts of players per statistic value.
+ * Tree doubles on demand up to {@link #MAX_SIZE} values, rare higher values
+ * are counted separately.
+ */
+class ScoreTree {
+
+  static final int INITIAL_SIZE = 1024;
+  static final int MAX_SIZE = 1 << 20;
+
+  //1-based, node i covers values (i - lowbit(i), i]
+  private int[] tree = new int[INITIAL_SIZE + 1];
+  private int size = INITIAL_SIZE;
+  private int treeTotal = 0;
+  private final TreeMap<Integer, Integer> overflow = new TreeMap<>();
+  private int overflowTotal = 0;
+
+  void add(int value, int delta) {
+    value = Math.max(0, value);
+    if (value >= MAX_SIZE) {
+      overflow.merge(value, delta, Integer::sum);
+      if (overflow.get(value) == 0) {
+        overflow.remove(value);
+      }
+      overflowTotal += delta;
+      return;
+    }
+    while (value >= size) {
+      grow();
+    }
+    treeTotal += delta;
+    for (int i = value + 1; i <= size; i += i & -i) {
+      tree[i] += delta;
+    }
+  }
+
+  private void grow() {
+    //with power of two sizes, new root covers whole old tree and the rest of new half is empty
+    tree = Arrays.copyOf(tree, size * 2 + 1);
+    size *= 2;
+    tree[size] = treeTotal;
+  }
+
+  /**
+   * @return amount of values lower than or equal to given one (which must be lower than size)
+   */
+  private int countAtMost(int value) {
+    int count = 0;
+    for (int i = value + 1; i > 0; i -= i & -i) {
+      count += tree[i];
+    }
+    return count;
+  }
+
+  int countGreater(int value) {
+    if (value < 0) {
+      return treeTotal + overflowTotal;
+    }
+    if (value >= MAX_SIZE) {
+      int count = 0;
+      for (int amount : overflow.tailMap(value, false).values()) {
+        count += amount;
+      }
+      return count;
+    }
+    if (value >= size) {
+      return overflowTotal;
+    }
+    return treeTotal - countAtMost(value) + overflowTotal;
+  }
+
+}
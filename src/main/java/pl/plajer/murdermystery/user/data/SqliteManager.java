@@ -0,0 +1,514 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import pl.plajer.murdermystery.Main;
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
+import pl.plajer.murdermystery.user.User;
+import pl.plajer.murdermystery.utils.Debugger;
+
+/**
+ * Statistics stored in embedded SQLite database (stats.db) in WAL mode.
+ * <p>
+ * Uses the same table as {@link MysqlManager} with additional indexes on statistic columns,
+ * all queries are executed on single dedicated thread which owns the connection
+ * and its prepared statements. Changed rows are coalesced and written in one transaction
+ * every {@link #FLUSH_INTERVAL} ticks. SQLite driver is shipped with the server.
+ */
+public class SqliteManager implements UserDatabase {
+
+  public static final String TABLE_NAME = "playerstats";
+  /**
+   * Interval (in ticks) of writing changed rows
+   */
+  public static final long FLUSH_INTERVAL = 20 * 5;
+
+  private Main plugin;
+  private final Logger logger;
+  private final File file;
+  private final StatsStorage.StatisticType[] persistentStats;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "MurderMystery SQLite");
+    thread.setDaemon(true);
+    return thread;
+  });
+  //owned by the executor thread
+  private Connection connection;
+  private PreparedStatement insertStatement;
+  private PreparedStatement updateStatement;
+  //latest values of rows changed since last flush, guarded by this
+  private Map<UUID, DirtyRow> dirty = new LinkedHashMap<>();
+  private BukkitTask flushTask;
+
+  public SqliteManager(Main plugin) {
+    this(plugin, new File(plugin.getDataFolder(), "stats.db"), plugin.getLogger());
+    flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+      if (!executor.isShutdown()) {
+        executor.execute(this::flush);
+      }
+    }, FLUSH_INTERVAL, FLUSH_INTERVAL);
+  }
+
+  /**
+   * Opens the database without periodic flushing, rows are written by {@link #flush()} only.
+   *
+   * @param plugin plugin instance, used only to complete loads on the main thread
+   * @param file   database file
+   * @param logger logger of storage errors
+   */
+  SqliteManager(Main plugin, File file, Logger logger) {
+    this.plugin = plugin;
+    this.logger = logger;
+    this.file = file;
+    List<StatsStorage.StatisticType> persistent = new ArrayList<>();
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (stat.isPersistent()) {
+        persistent.add(stat);
+      }
+    }
+    persistentStats = persistent.toArray(new StatsStorage.StatisticType[0]);
+    executor.execute(this::open);
+  }
+
+  private void open() {
+    try {
+      Class.forName("org.sqlite.JDBC");
+      connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("PRAGMA journal_mode=WAL;");
+        statement.execute("PRAGMA synchronous=NORMAL;");
+        statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + TABLE_NAME + "` (\n"
+          + "  `UUID` char(36) NOT NULL PRIMARY KEY,\n"
+          + "  `name` varchar(32) NOT NULL,\n"
+          + "  `kills` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `deaths` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `highestscore` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `gamesplayed` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `wins` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `loses` int(11) NOT NULL DEFAULT '0',\n"
+          + "  `contribmurderer` int(11) NOT NULL DEFAULT '1',\n"
+          + "  `contribdetective` int(11) NOT NULL DEFAULT '1'\n"
+          + ");");
+        for (StatsStorage.StatisticType stat : persistentStats) {
+          statement.executeUpdate("CREATE INDEX IF NOT EXISTS `idx_" + stat.getName() + "` ON `" + TABLE_NAME + "` (`" + stat.getName() + "`);");
+        }
+      }
+      StringBuilder update = new StringBuilder("UPDATE " + TABLE_NAME + " SET ");
+      for (int i = 0; i < persistentStats.length; i++) {
+        update.append(i == 0 ? "" : ", ").append(persistentStats[i].getName()).append("=?");
+      }
+      insertStatement = connection.prepareStatement("INSERT OR IGNORE INTO " + TABLE_NAME + " (UUID,name) VALUES (?,?);");
+      updateStatement = connection.prepareStatement(update.append(" WHERE UUID=?;").toString());
+      Debugger.debug(Level.INFO, "SQLite stats database opened at {0}", file.getName());
+    } catch (ClassNotFoundException | SQLException e) {
+      logger.log(Level.SEVERE, "Could not open SQLite stats database " + file.getName(), e);
+    }
+  }
+
+  private int[] captureStats(User user) {
+    int[] values = new int[persistentStats.length];
+    for (int i = 0; i < persistentStats.length; i++) {
+      values[i] = user.getStat(persistentStats[i]);
+    }
+    return values;
+  }
+
+  @Override
+  public void saveStatistic(User user, StatsStorage.StatisticType stat) {
+    save(user.getPlayer().getUniqueId(), user.getPlayer().getName(), captureStats(user));
+  }
+
+  @Override
+  public void saveAllStatistic(User user) {
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (!stat.isPersistent()) {
+        user.setStat(stat, 0);
+      }
+    }
+    save(user.getPlayer().getUniqueId(), user.getPlayer().getName(), captureStats(user));
+  }
+
+  void save(UUID uuid, String name, int[] values) {
+    synchronized (this) {
+      dirty.put(uuid, new DirtyRow(name, values));
+    }
+  }
+
+  /**
+   * Writes all changed rows in single transaction, must be called from the executor thread.
+   * Rows stay queued when the database isn't opened or the transaction fails.
+   */
+  void flush() {
+    Map<UUID, DirtyRow> rows;
+    synchronized (this) {
+      if (dirty.isEmpty()) {
+        return;
+      }
+      if (connection == null) {
+        Debugger.debug(Level.WARNING, "SQLite stats database is not opened, keeping {0} changed rows queued", dirty.size());
+        return;
+      }
+      rows = dirty;
+      dirty = new LinkedHashMap<>();
+    }
+    long start = System.currentTimeMillis();
+    try {
+      connection.setAutoCommit(false);
+      for (Map.Entry<UUID, DirtyRow> row : rows.entrySet()) {
+        insertStatement.setString(1, row.getKey().toString());
+        insertStatement.setString(2, row.getValue().name);
+        insertStatement.addBatch();
+        int[] values = row.getValue().values;
+        for (int i = 0; i < values.length; i++) {
+          updateStatement.setInt(i + 1, values[i]);
+        }
+        updateStatement.setString(values.length + 1, row.getKey().toString());
+        updateStatement.addBatch();
+      }
+      insertStatement.executeBatch();
+      updateStatement.executeBatch();
+      connection.commit();
+      Debugger.performance("SQLite", "Saved stats of {0} players took {1}ms", rows.size(), System.currentTimeMillis() - start);
+    } catch (SQLException e) {
+      logger.log(Level.WARNING, "Could not save SQLite stats of " + rows.size() + " players " + e.getSQLState() + " (" + e.getErrorCode() + ")");
+      try {
+        connection.rollback();
+      } catch (SQLException ignored) {
+        //connection is broken, nothing to roll back
+      }
+      synchronized (this) {
+        //newer changes win, failed rows are retried with next flush
+        rows.putAll(dirty);
+        dirty = rows;
+      }
+    } finally {
+      try {
+        //entries left by failed batch would be executed again with the retried rows
+        insertStatement.clearBatch();
+        updateStatement.clearBatch();
+        connection.setAutoCommit(true);
+      } catch (SQLException ignored) {
+        //connection is broken, next save reports it
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> loadStatistics(User user) {
+    return loadStatistics(Collections.singletonList(user));
+  }
+
+  @Override
+  public CompletableFuture<Void> loadStatistics(Collection<User> users) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    Map<String, User> byUuid = new LinkedHashMap<>();
+    Map<String, String> names = new HashMap<>();
+    for (User user : users) {
+      byUuid.put(user.getPlayer().getUniqueId().toString(), user);
+      names.put(user.getPlayer().getUniqueId().toString(), user.getPlayer().getName());
+    }
+    executor.execute(() -> {
+      //rows of players who just left might not be written yet
+      flush();
+      Map<String, LoadedStatistics> loaded;
+      try {
+        loaded = load(names);
+      } catch (SQLException e) {
+        logger.log(Level.WARNING, "Could not load SQLite stats of " + names.size() + " players " + e.getSQLState() + " (" + e.getErrorCode() + ")");
+        completeOnMainThread(future, () -> future.completeExceptionally(e));
+        return;
+      }
+      //users are only touched on the main thread, statistics are handed over as immutable batches
+      completeOnMainThread(future, () -> {
+        loaded.forEach((uuid, stats) -> byUuid.get(uuid).applyLoadedStatistics(stats));
+        future.complete(null);
+      });
+    });
+    return future;
+  }
+
+  /**
+   * Reads rows of given players and creates missing ones, must be called from the executor thread.
+   *
+   * @param names names of the players by their UUIDs
+   * @return loaded statistics by UUIDs of the players
+   */
+  Map<String, LoadedStatistics> load(Map<String, String> names) throws SQLException {
+    Map<String, LoadedStatistics> loaded = new HashMap<>();
+    List<String> renamed = new ArrayList<>();
+    List<String> uuids = new ArrayList<>(names.keySet());
+    if (connection == null) {
+      throw new SQLException("SQLite stats database is not opened");
+    }
+    for (int from = 0; from < uuids.size(); from += BULK_LOAD_CHUNK) {
+      List<String> chunk = uuids.subList(from, Math.min(from + BULK_LOAD_CHUNK, uuids.size()));
+      String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+      try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE UUID IN (" + placeholders + ");")) {
+        for (int i = 0; i < chunk.size(); i++) {
+          statement.setString(i + 1, chunk.get(i));
+        }
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            int[] values = new int[persistentStats.length];
+            for (int i = 0; i < persistentStats.length; i++) {
+              values[i] = rs.getInt(persistentStats[i].getName());
+            }
+            String uuid = rs.getString("UUID");
+            loaded.put(uuid, LoadedStatistics.of(persistentStats, values));
+            if (!names.get(uuid).equals(rs.getString("name"))) {
+              renamed.add(uuid);
+            }
+          }
+        }
+      }
+    }
+    Debugger.debug(Level.INFO, "SQLite Stats | Loaded {0} of {1} players", loaded.size(), uuids.size());
+    //players that don't exist get new records and renamed players new names, all in one transaction
+    connection.setAutoCommit(false);
+    try {
+      for (String uuid : uuids) {
+        if (loaded.containsKey(uuid)) {
+          continue;
+        }
+        insertStatement.setString(1, uuid);
+        insertStatement.setString(2, names.get(uuid));
+        insertStatement.executeUpdate();
+        int[] values = new int[persistentStats.length];
+        for (int i = 0; i < persistentStats.length; i++) {
+          boolean contribution = persistentStats[i] == StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE || persistentStats[i] == StatsStorage.StatisticType.CONTRIBUTION_MURDERER;
+          values[i] = contribution ? 1 : 0;
+        }
+        loaded.put(uuid, LoadedStatistics.of(persistentStats, values));
+      }
+      if (!renamed.isEmpty()) {
+        try (PreparedStatement rename = connection.prepareStatement("UPDATE " + TABLE_NAME + " SET name=? WHERE UUID=?;")) {
+          for (String uuid : renamed) {
+            rename.setString(1, names.get(uuid));
+            rename.setString(2, uuid);
+            rename.executeUpdate();
+          }
+        }
+      }
+      connection.commit();
+    } catch (SQLException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+    return loaded;
+  }
+
+  @Override
+  public List<LeaderboardEntry> getTopStatistics(StatsStorage.StatisticType stat, int limit) throws Exception {
+    return call(() -> {
+      List<LeaderboardEntry> top = new ArrayList<>(limit);
+      if (connection == null) {
+        return top;
+      }
+      try (PreparedStatement statement = connection.prepareStatement("SELECT UUID, " + stat.getName() + " FROM " + TABLE_NAME + " ORDER BY " + stat.getName() + " DESC LIMIT ?;")) {
+        statement.setInt(1, limit);
+        try (ResultSet set = statement.executeQuery()) {
+          while (set.next()) {
+            top.add(new LeaderboardEntry(UUID.fromString(set.getString("UUID")), set.getInt(2)));
+          }
+        }
+      }
+      return top;
+    }, 10);
+  }
+
+  @Override
+  public Map<UUID, String> getNames(Collection<UUID> uuids) throws Exception {
+    return call(() -> {
+      if (connection == null) {
+        throw new SQLException("SQLite stats database is not opened");
+      }
+      Map<UUID, String> names = new HashMap<>();
+      List<UUID> list = new ArrayList<>(uuids);
+      for (int from = 0; from < list.size(); from += BULK_LOAD_CHUNK) {
+        List<UUID> chunk = list.subList(from, Math.min(from + BULK_LOAD_CHUNK, list.size()));
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        try (PreparedStatement statement = connection.prepareStatement("SELECT UUID, name FROM " + TABLE_NAME + " WHERE UUID IN (" + placeholders + ");")) {
+          for (int i = 0; i < chunk.size(); i++) {
+            statement.setString(i + 1, chunk.get(i).toString());
+          }
+          try (ResultSet set = statement.executeQuery()) {
+            while (set.next()) {
+              names.put(UUID.fromString(set.getString("UUID")), set.getString("name"));
+            }
+          }
+        }
+      }
+      return names;
+    }, 10);
+  }
+
+  @Override
+  public void forEachStatistics(BiConsumer<UUID, int[]> consumer) throws Exception {
+    StringBuilder query = new StringBuilder("SELECT UUID");
+    for (StatsStorage.StatisticType stat : persistentStats) {
+      query.append(", ").append(stat.getName());
+    }
+    query.append(" FROM ").append(TABLE_NAME).append(";");
+    call(() -> {
+      if (connection == null) {
+        return null;
+      }
+      try (Statement statement = connection.createStatement();
+           ResultSet set = statement.executeQuery(query.toString())) {
+        while (set.next()) {
+          int[] values = new int[persistentStats.length];
+          for (int i = 0; i < values.length; i++) {
+            values[i] = set.getInt(i + 2);
+          }
+          consumer.accept(UUID.fromString(set.getString(1)), values);
+        }
+      }
+      return null;
+    }, 60);
+  }
+
+  /**
+   * Runs the task on the executor thread which owns the connection and waits for its result.
+   *
+   * @param task    task to run
+   * @param timeout maximum time (in seconds) to wait
+   * @return result of the task
+   */
+  <T> T call(Callable<T> task, long timeout) throws Exception {
+    return executor.submit(task).get(timeout, TimeUnit.SECONDS);
+  }
+
+  private void completeOnMainThread(CompletableFuture<Void> future, Runnable completion) {
+    if (plugin.isEnabled()) {
+      Bukkit.getScheduler().runTask(plugin, completion);
+    } else {
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * Get all UUID's sorted ascending by statistic, uses index of the column.
+   * Blocks until query is done so it must not be called from main thread.
+   *
+   * @param stat persistent statistic to get
+   * @return map of UUID keys and statistic values in ascending order
+   */
+  public Map<UUID, Integer> getStats(StatsStorage.StatisticType stat) {
+    Future<Map<UUID, Integer>> future = executor.submit(() -> {
+      flush();
+      Map<UUID, Integer> column = new LinkedHashMap<>();
+      if (connection == null) {
+        return column;
+      }
+      try (Statement statement = connection.createStatement();
+           ResultSet set = statement.executeQuery("SELECT UUID, " + stat.getName() + " FROM " + TABLE_NAME + " ORDER BY " + stat.getName())) {
+        while (set.next()) {
+          column.put(UUID.fromString(set.getString("UUID")), set.getInt(stat.getName()));
+        }
+      }
+      return column;
+    });
+    try {
+      return future.get(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      logger.log(Level.WARNING, "Could not get SQLite stats " + stat.getName(), e);
+    }
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public void shutdown() {
+    if (flushTask != null) {
+      flushTask.cancel();
+      flushTask = null;
+    }
+    executor.execute(() -> {
+      flush();
+      synchronized (this) {
+        if (!dirty.isEmpty()) {
+          logger.log(Level.SEVERE, "Could not save SQLite stats of " + dirty.size() + " players before shutdown, they are lost");
+        }
+      }
+      if (connection == null) {
+        return;
+      }
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        logger.log(Level.WARNING, "Could not close SQLite stats database", e);
+      }
+    });
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        logger.log(Level.WARNING, "SQLite stats database didn't finish pending saves in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class DirtyRow {
+
+    private final String name;
+    private final int[] values;
+
+    private DirtyRow(String name, int[] values) {
+      this.name = name;
+      this.values = values;
+    }
+
+  }
+
+}
@@ -18,6 +18,16 @@
 
 package pl.plajer.murdermystery.user.data;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import org.bukkit.Bukkit;
+
 import pl.plajer.murdermystery.api.StatsStorage;
 import pl.plajer.murdermystery.user.User;
 
@@ -28,6 +38,11 @@ import pl.plajer.murdermystery.user.User;
  */
 public interface UserDatabase {
 
+  /**
+   * Maximum amount of players fetched by single bulk load query
+   */
+  int BULK_LOAD_CHUNK = 100;
+
   /**
    * Saves player statistic into yaml or MySQL storage based on user choice
    *
@@ -47,7 +62,68 @@ public interface UserDatabase {
    * Loads player statistic from yaml or MySQL storage based on user choice
    *
    * @param user user to load statistic for
+   * @return future completed on the main thread once all statistics are applied to the user,
+   * completed exceptionally (also on the main thread) if statistics couldn't be loaded
+   */
+  CompletableFuture<Void> loadStatistics(User user);
+
+  /**
+   * Loads statistics of many players at once, storages with remote access
+   * fetch them with as few queries as possible
+   *
+   * @param users users to load statistics for
+   * @return future completed on the main thread once statistics are applied to all users
+   * @see #loadStatistics(User)
+   */
+  default CompletableFuture<Void> loadStatistics(Collection<User> users) {
+    return CompletableFuture.allOf(users.stream().map(this::loadStatistics).toArray(CompletableFuture[]::new));
+  }
+
+  /**
+   * Fetches the highest values of persistent statistic, blocking call
+   * which should be done asynchronously
+   *
+   * @param stat  persistent statistic to fetch
+   * @param limit maximum amount of entries
+   * @return entries sorted descending by value
+   * @throws Exception if storage couldn't be read
+   */
+  List<LeaderboardEntry> getTopStatistics(StatsStorage.StatisticType stat, int limit) throws Exception;
+
+  /**
+   * Reads persistent statistics of every stored player, blocking call
+   * which should be done asynchronously
+   *
+   * @param consumer receives UUID of the player and values of all persistent statistics
+   *                 in {@link StatsStorage.StatisticType} declaration order
+   * @throws Exception if storage couldn't be read
+   */
+  void forEachStatistics(BiConsumer<UUID, int[]> consumer) throws Exception;
+
+  /**
+   * Fetches last known names of the players, blocking call which should be done asynchronously.
+   * Storages without name column resolve names by the server
+   *
+   * @param uuids players to fetch names of
+   * @return map of UUIDs and names, unknown players are absent
+   * @throws Exception if storage couldn't be read
+   */
+  default Map<UUID, String> getNames(Collection<UUID> uuids) throws Exception {
+    Map<UUID, String> names = new HashMap<>();
+    for (UUID uuid : uuids) {
+      String name = Bukkit.getOfflinePlayer(uuid).getName();
+      if (name != null) {
+        names.put(uuid, name);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Synchronously writes all pending changes to the storage,
+   * called when plugin is being disabled
    */
-  void loadStatistics(User user);
+  default void shutdown() {
+  }
 
 }
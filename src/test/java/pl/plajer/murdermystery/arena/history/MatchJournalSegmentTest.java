@@ -0,0 +1,152 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MatchJournalSegmentTest {
+
+  private File folder;
+  private final UUID first = UUID.randomUUID();
+  private final UUID second = UUID.randomUUID();
+  private final UUID third = UUID.randomUUID();
+
+  @Before
+  public void createFolder() throws IOException {
+    folder = Files.createTempDirectory("mm-history").toFile();
+  }
+
+  @After
+  public void deleteFolder() {
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    folder.delete();
+  }
+
+  private long append(MatchJournalSegment segment, String arenaId, UUID... uuids) throws IOException {
+    return segment.append(MatchRecordTest.serialize(MatchRecordTest.createRecord(arenaId, uuids)), Arrays.asList(uuids));
+  }
+
+  private List<Long> load(MatchJournalSegment segment, boolean active, UUID uuid) throws IOException {
+    List<Long> offsets = new ArrayList<>();
+    segment.load(active, (indexed, offset) -> {
+      if (indexed.equals(uuid)) {
+        offsets.add(offset);
+      }
+    });
+    return offsets;
+  }
+
+  private File dataFile() {
+    return new File(folder, String.format("%08d.journal", 1));
+  }
+
+  @Test
+  public void appendAndRead() throws IOException {
+    MatchJournalSegment segment = new MatchJournalSegment(folder, 1);
+    segment.load(true, (uuid, offset) -> Assert.fail());
+    long firstOffset = append(segment, "arena1", first, second);
+    long secondOffset = append(segment, "arena2", second, third);
+    segment.seal();
+    Assert.assertEquals(0, firstOffset);
+    Assert.assertEquals(dataFile().length(), segment.size());
+
+    MatchJournalSegment reopened = new MatchJournalSegment(folder, 1);
+    Assert.assertEquals(Arrays.asList(firstOffset, secondOffset), load(reopened, false, second));
+    Assert.assertEquals("arena1", reopened.read(firstOffset).getArenaId());
+    Assert.assertEquals("arena2", reopened.read(secondOffset).getArenaId());
+    Assert.assertNotNull(reopened.read(secondOffset).getParticipant(third));
+  }
+
+  @Test
+  public void truncatedTailIsCutOff() throws IOException {
+    MatchJournalSegment segment = new MatchJournalSegment(folder, 1);
+    segment.load(true, (uuid, offset) -> {
+    });
+    append(segment, "arena1", first, second);
+    long validSize = segment.size();
+    append(segment, "arena2", third);
+    segment.seal();
+    //crash in the middle of the second record
+    try (RandomAccessFile file = new RandomAccessFile(dataFile(), "rw")) {
+      file.setLength(file.length() - 5);
+    }
+
+    MatchJournalSegment recovered = new MatchJournalSegment(folder, 1);
+    Assert.assertTrue(load(recovered, true, third).isEmpty());
+    Assert.assertEquals(validSize, recovered.size());
+    Assert.assertEquals(validSize, dataFile().length());
+    long offset = append(recovered, "arena3", third);
+    recovered.seal();
+    Assert.assertEquals(validSize, offset);
+
+    MatchJournalSegment reopened = new MatchJournalSegment(folder, 1);
+    Assert.assertEquals(Arrays.asList(0L), load(reopened, false, first));
+    Assert.assertEquals(Arrays.asList(validSize), load(reopened, false, third));
+    Assert.assertEquals("arena3", reopened.read(validSize).getArenaId());
+  }
+
+  @Test
+  public void corruptedTailIsCutOff() throws IOException {
+    MatchJournalSegment segment = new MatchJournalSegment(folder, 1);
+    segment.load(true, (uuid, offset) -> {
+    });
+    append(segment, "arena1", first);
+    long validSize = segment.size();
+    append(segment, "arena2", second);
+    segment.seal();
+    //last byte of the second record doesn't match its checksum anymore
+    try (RandomAccessFile file = new RandomAccessFile(dataFile(), "rw")) {
+      file.seek(file.length() - 1);
+      int last = file.read();
+      file.seek(file.length() - 1);
+      file.write(last ^ 0xFF);
+    }
+
+    MatchJournalSegment recovered = new MatchJournalSegment(folder, 1);
+    Assert.assertTrue(load(recovered, true, second).isEmpty());
+    Assert.assertEquals(Arrays.asList(0L), load(new MatchJournalSegment(folder, 1), false, first));
+    recovered.seal();
+    Assert.assertEquals(validSize, dataFile().length());
+  }
+
+  @Test
+  public void parseId() {
+    Assert.assertEquals(12, MatchJournalSegment.parseId("00000012.journal"));
+    Assert.assertEquals(-1, MatchJournalSegment.parseId("00000012.index"));
+    Assert.assertEquals(-1, MatchJournalSegment.parseId("latest.journal"));
+  }
+
+}
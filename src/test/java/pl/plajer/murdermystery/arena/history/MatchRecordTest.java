@@ -0,0 +1,76 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.arena.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import pl.plajer.murdermystery.arena.role.Role;
+
+public class MatchRecordTest {
+
+  static MatchRecord createRecord(String arenaId, UUID... uuids) {
+    MatchRecord.Participant[] participants = new MatchRecord.Participant[uuids.length];
+    for (int i = 0; i < uuids.length; i++) {
+      participants[i] = new MatchRecord.Participant(uuids[i], i == 0 ? Role.MURDERER : Role.INNOCENT, i, i * 10, i % 2 == 0);
+    }
+    return new MatchRecord(arenaId, 1600000000000L, 245, true, Arrays.asList(participants));
+  }
+
+  static byte[] serialize(MatchRecord record) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    record.write(new DataOutputStream(bytes));
+    return bytes.toByteArray();
+  }
+
+  @Test
+  public void roundTrip() throws IOException {
+    UUID murderer = UUID.randomUUID();
+    UUID innocent = UUID.randomUUID();
+    MatchRecord record = MatchRecord.read(new DataInputStream(new ByteArrayInputStream(serialize(createRecord("arena1", murderer, innocent)))));
+    Assert.assertEquals("arena1", record.getArenaId());
+    Assert.assertEquals(1600000000000L, record.getEndTime());
+    Assert.assertEquals(245, record.getDuration());
+    Assert.assertTrue(record.isMurdererWon());
+    Assert.assertEquals(2, record.getParticipants().size());
+    MatchRecord.Participant participant = record.getParticipant(innocent);
+    Assert.assertEquals(Role.INNOCENT, participant.getRole());
+    Assert.assertEquals(1, participant.getKills());
+    Assert.assertEquals(10, participant.getScore());
+    Assert.assertFalse(participant.isSurvived());
+    Assert.assertEquals(Role.MURDERER, record.getParticipant(murderer).getRole());
+    Assert.assertTrue(record.getParticipant(murderer).isSurvived());
+  }
+
+  @Test(expected = IOException.class)
+  public void unknownVersion() throws IOException {
+    byte[] bytes = serialize(createRecord("arena1", UUID.randomUUID()));
+    bytes[0] = 127;
+    MatchRecord.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+  }
+
+}
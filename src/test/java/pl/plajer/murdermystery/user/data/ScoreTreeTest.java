@@ -0,0 +1,96 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScoreTreeTest {
+
+  @Test
+  public void countGreater() {
+    ScoreTree tree = new ScoreTree();
+    tree.add(5, 1);
+    tree.add(5, 1);
+    tree.add(10, 1);
+    tree.add(0, 1);
+    Assert.assertEquals(4, tree.countGreater(-1));
+    Assert.assertEquals(3, tree.countGreater(0));
+    Assert.assertEquals(1, tree.countGreater(5));
+    Assert.assertEquals(1, tree.countGreater(9));
+    Assert.assertEquals(0, tree.countGreater(10));
+    Assert.assertEquals(0, tree.countGreater(ScoreTree.INITIAL_SIZE * 4));
+  }
+
+  @Test
+  public void removeValue() {
+    ScoreTree tree = new ScoreTree();
+    tree.add(3, 1);
+    tree.add(7, 1);
+    tree.add(3, -1);
+    tree.add(4, 1);
+    Assert.assertEquals(2, tree.countGreater(2));
+    Assert.assertEquals(1, tree.countGreater(4));
+  }
+
+  @Test
+  public void negativeValuesCountAsZero() {
+    ScoreTree tree = new ScoreTree();
+    tree.add(-5, 1);
+    tree.add(1, 1);
+    Assert.assertEquals(1, tree.countGreater(0));
+    Assert.assertEquals(2, tree.countGreater(-1));
+  }
+
+  @Test
+  public void growKeepsCounts() {
+    ScoreTree tree = new ScoreTree();
+    for (int value = 0; value < ScoreTree.INITIAL_SIZE; value++) {
+      tree.add(value, 1);
+    }
+    //forces two doublings of the tree
+    tree.add(ScoreTree.INITIAL_SIZE * 3, 1);
+    Assert.assertEquals(ScoreTree.INITIAL_SIZE + 1, tree.countGreater(-1));
+    Assert.assertEquals(ScoreTree.INITIAL_SIZE, tree.countGreater(0));
+    Assert.assertEquals(1, tree.countGreater(ScoreTree.INITIAL_SIZE - 1));
+    Assert.assertEquals(1, tree.countGreater(ScoreTree.INITIAL_SIZE * 2));
+    Assert.assertEquals(0, tree.countGreater(ScoreTree.INITIAL_SIZE * 3));
+    tree.add(ScoreTree.INITIAL_SIZE + 5, 1);
+    Assert.assertEquals(2, tree.countGreater(ScoreTree.INITIAL_SIZE));
+  }
+
+  @Test
+  public void overflowValues() {
+    ScoreTree tree = new ScoreTree();
+    tree.add(10, 1);
+    tree.add(ScoreTree.MAX_SIZE, 1);
+    tree.add(ScoreTree.MAX_SIZE + 100, 1);
+    tree.add(Integer.MAX_VALUE, 1);
+    Assert.assertEquals(4, tree.countGreater(-1));
+    Assert.assertEquals(3, tree.countGreater(10));
+    Assert.assertEquals(3, tree.countGreater(ScoreTree.MAX_SIZE - 1));
+    Assert.assertEquals(2, tree.countGreater(ScoreTree.MAX_SIZE));
+    Assert.assertEquals(1, tree.countGreater(ScoreTree.MAX_SIZE + 100));
+    Assert.assertEquals(0, tree.countGreater(Integer.MAX_VALUE));
+    tree.add(ScoreTree.MAX_SIZE + 100, -1);
+    Assert.assertEquals(1, tree.countGreater(ScoreTree.MAX_SIZE));
+    Assert.assertEquals(2, tree.countGreater(10));
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * MurderMystery - Find the murderer, kill him and survive!
+ * Copyright (C) 2020  Plugily Projects - maintained by Tigerpanzer_02, 2Wild4You and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pl.plajer.murdermystery.user.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.plajer.murdermystery.api.StatsStorage;
+import pl.plajer.murdermystery.user.LoadedStatistics;
+
+public class SqliteManagerTest {
+
+  private static final List<StatsStorage.StatisticType> PERSISTENT = new ArrayList<>();
+
+  static {
+    for (StatsStorage.StatisticType stat : StatsStorage.StatisticType.values()) {
+      if (stat.isPersistent()) {
+        PERSISTENT.add(stat);
+      }
+    }
+  }
+
+  private File folder;
+  private SqliteManager manager;
+
+  @Before
+  public void open() throws IOException {
+    folder = Files.createTempDirectory("mm-sqlite").toFile();
+    manager = new SqliteManager(null, new File(folder, "stats.db"), Logger.getAnonymousLogger());
+  }
+
+  @After
+  public void close() {
+    manager.shutdown();
+    File[] files = folder.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    folder.delete();
+  }
+
+  private static int[] values(int base) {
+    int[] values = new int[PERSISTENT.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = base + i;
+    }
+    return values;
+  }
+
+  private void flush() throws Exception {
+    manager.call(() -> {
+      manager.flush();
+      return null;
+    }, 10);
+  }
+
+  private LoadedStatistics load(UUID uuid, String name) throws Exception {
+    Map<String, LoadedStatistics> loaded = manager.call(() -> manager.load(Collections.singletonMap(uuid.toString(), name)), 10);
+    return loaded.get(uuid.toString());
+  }
+
+  @Test
+  public void saveFlushLoad() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    manager.save(uuid, "Player", values(100));
+    flush();
+    LoadedStatistics loaded = load(uuid, "Player");
+    for (int i = 0; i < PERSISTENT.size(); i++) {
+      Assert.assertEquals(100 + i, loaded.get(PERSISTENT.get(i)));
+    }
+  }
+
+  @Test
+  public void latestChangeIsWritten() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    manager.save(uuid, "Player", values(1));
+    manager.save(uuid, "Player", values(50));
+    flush();
+    Assert.assertEquals(50, load(uuid, "Player").get(PERSISTENT.get(0)));
+  }
+
+  @Test
+  public void newPlayerGetsDefaults() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    LoadedStatistics loaded = load(uuid, "Player");
+    Assert.assertEquals(1, loaded.get(StatsStorage.StatisticType.CONTRIBUTION_MURDERER));
+    Assert.assertEquals(1, loaded.get(StatsStorage.StatisticType.CONTRIBUTION_DETECTIVE));
+    Assert.assertEquals(0, loaded.get(StatsStorage.StatisticType.KILLS));
+    Assert.assertEquals("Player", manager.getNames(Collections.singletonList(uuid)).get(uuid));
+  }
+
+  @Test
+  public void renamedPlayer() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    manager.save(uuid, "Player", values(1));
+    flush();
+    load(uuid, "Renamed");
+    Assert.assertEquals("Renamed", manager.getNames(Collections.singletonList(uuid)).get(uuid));
+  }
+
+  @Test
+  public void topStatistics() throws Exception {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    UUID third = UUID.randomUUID();
+    manager.save(first, "First", values(300));
+    manager.save(second, "Second", values(200));
+    manager.save(third, "Third", values(100));
+    flush();
+    List<LeaderboardEntry> top = manager.getTopStatistics(StatsStorage.StatisticType.KILLS, 2);
+    Assert.assertEquals(2, top.size());
+    Assert.assertEquals(first, top.get(0).getUuid());
+    Assert.assertEquals(second, top.get(1).getUuid());
+  }
+
+}